@@ -0,0 +1,117 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+
+/**
+ * Positions shared by the benchmarks. Each is rebuilt from scratch on every
+ * call so a benchmark can freely mutate the game it is given.
+ */
+public final class Fixtures {
+
+    /**
+     * The positions a benchmark can be parameterized over
+     */
+    public enum Phase {
+        OPENING, MIDDLEGAME, ENDGAME;
+
+        public ChessGame game() {
+            return switch (this) {
+                case OPENING -> opening();
+                case MIDDLEGAME -> middlegame();
+                case ENDGAME -> endgame();
+            };
+        }
+    }
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return the Ruy Lopez after 3...a6, white to move
+     */
+    public static ChessGame opening() {
+        return play("e2e4 e7e5 g1f3 b8c6 f1b5 a7a6");
+    }
+
+    /**
+     * @return a closed Italian game with every minor piece developed, white to move
+     */
+    public static ChessGame middlegame() {
+        return play("e2e4 e7e5 g1f3 b8c6 f1c4 f8c5 c2c3 g8f6 d2d3 d7d6 b1d2 a7a6 h2h3 h7h6 d2f1 c8e6");
+    }
+
+    /**
+     * @return a rook and pawns ending, white to move
+     */
+    public static ChessGame endgame() {
+        ChessBoard board = new ChessBoard();
+        add(board, "g2", ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        add(board, "a1", ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        add(board, "e4", ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        add(board, "f2", ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        add(board, "g3", ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        add(board, "h2", ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        add(board, "f7", ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        add(board, "b8", ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        add(board, "b5", ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        add(board, "e5", ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        add(board, "g6", ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        add(board, "h7", ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        return game;
+    }
+
+    /**
+     * @return the position after fool's mate, white checkmated
+     */
+    public static ChessGame checkmate() {
+        return play("f2f3 e7e5 g2g4 d8h4");
+    }
+
+    /**
+     * @return the first move the opening fixture would play, 4.Ba4
+     */
+    public static ChessMove openingMove() {
+        return move("b5a4");
+    }
+
+    /**
+     * Plays a space separated list of moves in coordinate notation, e.g. {@code e2e4}
+     */
+    public static ChessGame play(String moves) {
+        ChessGame game = new ChessGame();
+        for (String move : moves.split(" ")) {
+            try {
+                game.makeMove(move(move));
+            } catch (InvalidMoveException e) {
+                throw new IllegalStateException("Illegal fixture move " + move, e);
+            }
+        }
+        return game;
+    }
+
+    /**
+     * @return a move parsed from coordinate notation, without promotion
+     */
+    public static ChessMove move(String move) {
+        return new ChessMove(position(move.substring(0, 2)), position(move.substring(2, 4)), null);
+    }
+
+    /**
+     * @return a position parsed from a square name such as {@code e4}
+     */
+    public static ChessPosition position(String square) {
+        return ChessPosition.of(square.charAt(1) - '0', square.charAt(0) - 'a' + 1);
+    }
+
+    private static void add(ChessBoard board, String square, ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        board.addPiece(position(square), ChessPiece.of(color, type));
+    }
+}
@@ -0,0 +1,73 @@
+package benchmark;
+
+import dataaccess.DataAccessException;
+import dataaccess.MemoryDataAccess;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The data access calls behind each request, against the in-memory store
+ * so the numbers reflect our code rather than the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PersistenceBenchmark {
+
+    @Param({"10", "1000"})
+    public int games;
+
+    private MemoryDataAccess db;
+    private GameData game;
+    private int gameID;
+
+    @Setup
+    public void setup() throws DataAccessException {
+        db = new MemoryDataAccess();
+        db.createUser(new UserData("white", "password", "white@example.com"));
+        db.createAuth(new AuthData("token", "white"));
+        for (int i = 0; i < games; i++) {
+            gameID = db.createGame(new GameData(0, "white", null, "game " + i, Fixtures.middlegame()));
+        }
+        game = db.getGame(gameID);
+    }
+
+    @Benchmark
+    public AuthData getAuth() throws DataAccessException {
+        return db.getAuth("token");
+    }
+
+    @Benchmark
+    public GameData getGame() throws DataAccessException {
+        return db.getGame(gameID);
+    }
+
+    @Benchmark
+    public GameData updateGame() throws DataAccessException {
+        db.updateGame(game);
+        return game;
+    }
+
+    @Benchmark
+    public Collection<GameData> listGames() throws DataAccessException {
+        return db.listGames();
+    }
+}
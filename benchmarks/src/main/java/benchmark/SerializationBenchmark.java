@@ -0,0 +1,88 @@
+package benchmark;
+
+import chess.ChessGame;
+import com.google.gson.Gson;
+import model.GameData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import serialization.GameCodec;
+import serialization.Serializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of games, as done for every database write and every LOAD_GAME
+ * message: Gson JSON for text messages, and the binary GameCodec form for
+ * the database and binary frames.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Fixtures.Phase phase;
+
+    private final Gson gson = Serializer.gson();
+    private ChessGame game;
+    private GameData gameData;
+    private String gameJson;
+    private String gameDataJson;
+    private byte[] gameBytes;
+
+    @Setup
+    public void setup() {
+        game = phase.game();
+        gameData = new GameData(1, "white", "black", "benchmark", game);
+        gameJson = gson.toJson(game);
+        gameDataJson = gson.toJson(gameData);
+        gameBytes = GameCodec.encode(game);
+    }
+
+    @Benchmark
+    public String gameToJson() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame gameFromJson() {
+        return gson.fromJson(gameJson, ChessGame.class);
+    }
+
+    @Benchmark
+    public byte[] gameToBinary() {
+        return GameCodec.encode(game);
+    }
+
+    @Benchmark
+    public ChessGame gameFromBinary() {
+        return GameCodec.decode(gameBytes);
+    }
+
+    @Benchmark
+    public String gameDataToJson() {
+        return gson.toJson(gameData);
+    }
+
+    @Benchmark
+    public GameData gameDataFromJson() {
+        return gson.fromJson(gameDataJson, GameData.class);
+    }
+
+    @Benchmark
+    public GameData gameDataRoundTrip() {
+        return gson.fromJson(gson.toJson(gameData), GameData.class);
+    }
+}
@@ -0,0 +1,127 @@
+package benchmark;
+
+import chess.ChessGame;
+import com.google.gson.Gson;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryDataAccess;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import serialization.Serializer;
+import service.GameService;
+import service.UserService;
+import websocket.WebSocketHandler;
+import websocket.commands.UserGameCommand;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full handling of a WebSocket command: parsing, auth lookup, loading the
+ * game, applying the move, saving, and encoding the messages sent back.
+ * Sessions are stand-ins that discard what is sent to them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WebSocketBenchmark {
+
+    private final WebSocketHandler handler = new WebSocketHandler();
+    private MemoryDataAccess db;
+    private Session white;
+    private Session black;
+    private int gameID;
+    private String connectJson;
+    private String moveJson;
+
+    @Setup(Level.Trial)
+    public void setup() throws DataAccessException {
+        db = new MemoryDataAccess();
+        db.createUser(new UserData("white", "password", "white@example.com"));
+        db.createUser(new UserData("black", "password", "black@example.com"));
+        db.createAuth(new AuthData("white-token", "white"));
+        db.createAuth(new AuthData("black-token", "black"));
+        gameID = db.createGame(new GameData(0, "white", "black", "benchmark", Fixtures.opening()));
+        WebSocketHandler.configure(new GameService(db), new UserService(db), db);
+
+        white = session();
+        black = session();
+        Gson gson = Serializer.gson();
+        connectJson = gson.toJson(new UserGameCommand(UserGameCommand.CommandType.CONNECT, "black-token", gameID));
+        moveJson = gson.toJson(new UserGameCommand(UserGameCommand.CommandType.MAKE_MOVE, "white-token", gameID,
+                Fixtures.openingMove()));
+        handler.onMessage(white, gson.toJson(new UserGameCommand(UserGameCommand.CommandType.CONNECT, "white-token", gameID)));
+        handler.onMessage(black, connectJson);
+    }
+
+    /**
+     * Puts the opening position back so every move benchmark plays the same move
+     */
+    @Setup(Level.Invocation)
+    public void resetGame() throws DataAccessException {
+        GameData data = db.getGame(gameID);
+        ChessGame game = Fixtures.opening();
+        db.updateGame(new GameData(gameID, data.whiteUsername(), data.blackUsername(), data.gameName(), game));
+    }
+
+    @Benchmark
+    public void connect() {
+        handler.onMessage(black, connectJson);
+    }
+
+    @Benchmark
+    public void makeMove() {
+        handler.onMessage(white, moveJson);
+    }
+
+    /**
+     * @return an open session, connected without query parameters, whose
+     * remote end accepts and drops every message
+     */
+    private static Session session() {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> defaultValue(method.getReturnType()));
+        UpgradeRequest request = (UpgradeRequest) Proxy.newProxyInstance(UpgradeRequest.class.getClassLoader(),
+                new Class<?>[]{UpgradeRequest.class}, (proxy, method, args) ->
+                        method.getName().equals("getParameterMap") ? Map.of() : defaultValue(method.getReturnType()));
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "isOpen" -> true;
+                    case "getRemote" -> remote;
+                    case "getUpgradeRequest" -> request;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "BenchmarkSession@" + Integer.toHexString(System.identityHashCode(proxy));
+                    default -> defaultValue(method.getReturnType());
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -11,11 +11,12 @@ import java.net.http.HttpResponse;
 import model.AuthData;
 import model.UserData;
 import model.GameData;
+import serialization.Serializer;
 
 public class ServerFacade {
     private final String serverUrl;
     private String authToken;
-    private final Gson gson = new Gson();
+    private final Gson gson = Serializer.gson();
 
     public ServerFacade(int port) {
         this.serverUrl = "http://localhost:" + port;
@@ -46,7 +47,14 @@ public class ServerFacade {
     }
 
     public int createGame(String gameName) throws Exception {
-        CreateGameRequest req = new CreateGameRequest(gameName);
+        return createGame(gameName, null);
+    }
+
+    /**
+     * @param fen the starting position in FEN, or null for the standard one
+     */
+    public int createGame(String gameName, String fen) throws Exception {
+        CreateGameRequest req = new CreateGameRequest(gameName, fen);
         CreateGameResponse resp = makeRequest("POST", "/game", req, CreateGameResponse.class);
         assert resp != null;
         return resp.getGameID();
@@ -57,7 +65,22 @@ public class ServerFacade {
     }
 
     public void joinGame(int gameID, String playerColor) throws Exception {
-        JoinGameRequest req = new JoinGameRequest(playerColor, gameID);
+        joinGame(gameID, playerColor, false);
+    }
+
+    /**
+     * @param bot True to seat the server's bot as the other color
+     */
+    public void joinGame(int gameID, String playerColor, boolean bot) throws Exception {
+        joinGame(gameID, playerColor, bot, 0);
+    }
+
+    /**
+     * @param bot       True to seat the server's bot as the other color
+     * @param botMillis how long the bot may think about each move, or 0 for the server's default
+     */
+    public void joinGame(int gameID, String playerColor, boolean bot, long botMillis) throws Exception {
+        JoinGameRequest req = new JoinGameRequest(playerColor, gameID, bot, botMillis);
         makeRequest("PUT", "/game", req, null);
     }
 
@@ -107,7 +130,7 @@ public class ServerFacade {
         }
     }
 
-    public record CreateGameRequest(String gameName) {
+    public record CreateGameRequest(String gameName, String fen) {
     }
 
     public static class CreateGameResponse {
@@ -122,7 +145,7 @@ public class ServerFacade {
         }
     }
 
-    public record JoinGameRequest(String playerColor, int gameID) {
+    public record JoinGameRequest(String playerColor, int gameID, boolean bot, long botMillis) {
     }
 
     public static class ListGamesResponse {
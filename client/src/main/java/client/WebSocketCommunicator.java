@@ -1,18 +1,24 @@
 package client;
 
+import java.io.ByteArrayOutputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
 import java.util.concurrent.CompletionStage;
 
+import chess.ChessGame;
 import com.google.gson.Gson;
+import serialization.GameCodec;
+import serialization.Serializer;
 import websocket.commands.UserGameCommand;
 import websocket.messages.*;
 
 public class WebSocketCommunicator implements WebSocket.Listener {
     private WebSocket ws;
-    private final Gson gson = new Gson();
+    private final Gson gson = Serializer.gson();
     private ServerMessageObserver observer;
+    private final ByteArrayOutputStream partialGame = new ByteArrayOutputStream();
 
     public void setObserver(ServerMessageObserver o) {
         this.observer = o;
@@ -21,7 +27,7 @@ public class WebSocketCommunicator implements WebSocket.Listener {
     public void connect() {
         ws = HttpClient.newHttpClient()
                 .newWebSocketBuilder()
-                .buildAsync(URI.create("ws://localhost:8080/ws"), this)
+                .buildAsync(URI.create("ws://localhost:8080/ws?format=binary"), this)
                 .join();
     }
 
@@ -35,6 +41,25 @@ public class WebSocketCommunicator implements WebSocket.Listener {
         }
     }
 
+    /**
+     * Games arrive as binary frames, since the connection asks for them that way
+     */
+    @Override
+    public CompletionStage<?> onBinary(WebSocket w, ByteBuffer data, boolean last) {
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        partialGame.writeBytes(bytes);
+        if (last) {
+            ChessGame game = GameCodec.decode(partialGame.toByteArray());
+            partialGame.reset();
+            if (observer != null) {
+                observer.onLoadGame(new LoadGameMessage(game));
+            }
+        }
+        w.request(1);
+        return null;
+    }
+
     @Override
     public CompletionStage<?> onText(WebSocket w, CharSequence d, boolean l) {
         String json = d.toString();
@@ -43,7 +43,7 @@ public class ChessBoardDrawer {
                 }
 
                 ChessPiece piece = board.getPiece(
-                        new ChessPosition(boardRowIndex + 1, boardColIndex + 1));
+                        ChessPosition.of(boardRowIndex + 1, boardColIndex + 1));
                 System.out.print(pieceToUnicode(piece));
             }
             System.out.println(RESET_BG_COLOR + " " + displayRank);
@@ -74,7 +74,7 @@ public class ChessBoardDrawer {
 
             for (int col = 0; col < 8; col++) {
                 int boardColIndex = whitePerspective ? col : (7 - col);
-                ChessPosition pos = new ChessPosition(boardRowIndex + 1, boardColIndex + 1);
+                ChessPosition pos = ChessPosition.of(boardRowIndex + 1, boardColIndex + 1);
                 String bgColor = determineBackgroundColor(
                         boardRowIndex, boardColIndex, highlight, moves, pos);
                 System.out.print(bgColor);
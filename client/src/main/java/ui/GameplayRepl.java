@@ -47,13 +47,14 @@ public class GameplayRepl implements ServerMessageObserver {
                 case "LEAVE" -> handleLeave();
                 case "HIGHLIGHT" -> handleHighlight(t);
                 case "REDRAW" -> handleRedraw();
+                case "FEN" -> handleFen();
                 default -> handleUnknown();
             }
         }
     }
 
     private void handleHelp() {
-        System.out.println("HELP | MOVE | RESIGN | LEAVE | HIGHLIGHT | REDRAW");
+        System.out.println("HELP | MOVE | RESIGN | LEAVE | HIGHLIGHT | REDRAW | FEN");
     }
 
     private void handleMove(String[] t, Scanner sc) {
@@ -177,6 +178,14 @@ public class GameplayRepl implements ServerMessageObserver {
         }
     }
 
+    private void handleFen() {
+        if (currentGame != null) {
+            System.out.println(currentGame.toFen());
+        } else {
+            System.out.println("Game not loaded yet.");
+        }
+    }
+
     private void handleUnknown() {
         System.out.println("Unknown command. Type HELP for available commands.");
     }
@@ -190,12 +199,15 @@ public class GameplayRepl implements ServerMessageObserver {
         if (row < 0 || row > 7 || col < 0 || col > 7) {
             return null;
         }
-        return new ChessPosition(row + 1, col + 1);
+        return ChessPosition.of(row + 1, col + 1);
     }
 
     @Override
     public void onLoadGame(LoadGameMessage msg) {
         currentGame = msg.getGame();
+        if (currentGame.getStatus().isGameOver()) {
+            gameOver = true;
+        }
         ChessBoardDrawer.drawBoard(currentGame, !"BLACK".equalsIgnoreCase(role));
     }
 
@@ -203,7 +215,8 @@ public class GameplayRepl implements ServerMessageObserver {
     public void onNotification(NotificationMessage msg) {
         System.out.println(msg.getMessage());
         String text = msg.getMessage().toLowerCase();
-        if (text.contains("checkmate") || text.contains("stalemate") || text.contains("resign")) {
+        if (text.contains("checkmate") || text.contains("stalemate") || text.contains("drawn")
+                || text.contains("resign")) {
             gameOver = true;
             shouldExit = true;
         }
@@ -3,6 +3,7 @@ package ui;
 import client.ServerFacade;
 import model.GameData;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
@@ -35,7 +36,8 @@ public class PostLoginRepl {
                 }
                 case "create" -> handleCreate(tokens);
                 case "list" -> handleList();
-                case "join" -> handleJoin(tokens);
+                case "join" -> handleJoin(tokens, false);
+                case "play" -> handleJoin(tokens, true);
                 case "observe" -> handleObserve(tokens);
                 default -> System.out.println("Unknown command");
             }
@@ -43,9 +45,12 @@ public class PostLoginRepl {
     }
 
     private void printHelp() {
-        System.out.println("    create <NAME>           - create a new game");
+        System.out.println("    create <NAME> [FEN]     - create a new game, optionally from a position");
         System.out.println("    list                    - list all games");
         System.out.println("    join <#> [WHITE|BLACK]  - join a game (by list‐index)");
+        System.out.println("    play <#> [WHITE|BLACK] [SECONDS]");
+        System.out.println("                            - play a game against the computer, which thinks");
+        System.out.println("                              for SECONDS per move (about 1 by default)");
         System.out.println("    observe <#>             - observe a game (by list‐index)");
         System.out.println("    logout                  - log out");
         System.out.println("    quit                    - exit");
@@ -64,11 +69,12 @@ public class PostLoginRepl {
 
     private void handleCreate(String[] tokens) {
         if (tokens.length < 2) {
-            System.out.println("Usage: create <NAME>");
+            System.out.println("Usage: create <NAME> [FEN]");
             return;
         }
         try {
-            int gameID = serverFacade.createGame(tokens[1]);
+            String fen = tokens.length > 2 ? String.join(" ", Arrays.copyOfRange(tokens, 2, tokens.length)) : null;
+            int gameID = serverFacade.createGame(tokens[1], fen);
             currentGames = serverFacade.listGames().getGames();
             int clientIndex = -1;
             for (int i = 0; i < currentGames.size(); i++) {
@@ -102,9 +108,9 @@ public class PostLoginRepl {
         }
     }
 
-    private void handleJoin(String[] tokens) {
-        if (tokens.length < 2 || tokens.length > 3) {
-            System.out.println("Usage: join <#> [WHITE|BLACK]");
+    private void handleJoin(String[] tokens, boolean bot) {
+        if (tokens.length < 2 || tokens.length > (bot ? 4 : 3)) {
+            System.out.println("Usage: " + tokens[0].toLowerCase() + " <#> [WHITE|BLACK]" + (bot ? " [SECONDS]" : ""));
             return;
         }
         try {
@@ -113,9 +119,17 @@ public class PostLoginRepl {
                 System.out.println("Invalid game number; use 'list' first.");
                 return;
             }
-            String playerColor = (tokens.length == 3 ? tokens[2].toUpperCase() : null);
+            String playerColor = (tokens.length >= 3 ? tokens[2].toUpperCase() : null);
+            long botMillis = 0;
+            if (bot && tokens.length >= 3 && Character.isDigit(tokens[tokens.length - 1].charAt(0))) {
+                botMillis = Math.round(Double.parseDouble(tokens[tokens.length - 1]) * 1000);
+                playerColor = (tokens.length == 4 ? tokens[2].toUpperCase() : null);
+            }
             int gameID = currentGames.get(idx - 1).gameID();
-            serverFacade.joinGame(gameID, playerColor);
+            if (bot && playerColor == null) {
+                playerColor = "WHITE";
+            }
+            serverFacade.joinGame(gameID, playerColor, bot, botMillis);
             System.out.println("Joined game " + idx + " as " + (playerColor != null ? playerColor : "observer"));
             WebSocketCommunicator wc = new WebSocketCommunicator();
             wc.connect();
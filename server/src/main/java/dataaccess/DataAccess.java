@@ -1,8 +1,10 @@
 package dataaccess;
 
+import chess.ChessMove;
 import model.*;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface DataAccess {
     void clear() throws DataAccessException;
@@ -20,5 +22,29 @@ public interface DataAccess {
     int createGame(GameData game) throws DataAccessException;
     GameData getGame(int gameID) throws DataAccessException;
     Collection<GameData> listGames() throws DataAccessException;
+    /**
+     * Saves a game's players, name and full state. Moves logged from the
+     * game's ply on are dropped, since the state given replaces them, so this
+     * is only for resetting a game's state; use updateGameInfo for seat changes.
+     */
     void updateGame(GameData game) throws DataAccessException;
+    /**
+     * Saves a game's players and name only. Its state and logged moves are
+     * left alone, so a move logged since the game was read is kept.
+     */
+    void updateGameInfo(GameData game) throws DataAccessException;
+
+    // Moves
+    /**
+     * Logs a move just played instead of saving the whole game. Now and then
+     * the game's state is saved with it as well, so loading a game only
+     * replays the moves since then.
+     *
+     * @param game the game as it is after the move
+     */
+    void appendMove(GameData game, ChessMove move) throws DataAccessException;
+    /**
+     * @return every move logged for a game, in the order played
+     */
+    List<ChessMove> listMoves(int gameID) throws DataAccessException;
 }
\ No newline at end of file
@@ -1,17 +1,30 @@
 package dataaccess;
 
+import chess.ChessGame;
+import chess.ChessMove;
 import model.AuthData;
 import model.GameData;
 import model.UserData;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
+/**
+ * Keeps everything in maps. Games are stored the way the database stores
+ * them, as a snapshot plus the moves logged since, and each read returns
+ * a new copy, so changing a loaded game never changes the stored one.
+ */
 public class MemoryDataAccess implements DataAccess {
     private final Map<String, UserData> users = new HashMap<>();
     private final Map<String, AuthData> auths = new HashMap<>();
     private final Map<Integer, GameData> games = new HashMap<>();
+    /* logged moves of each game by ply */
+    private final Map<Integer, NavigableMap<Integer, ChessMove>> moves = new HashMap<>();
     private int nextGameID = 1;
 
     @Override
@@ -19,6 +32,7 @@ public class MemoryDataAccess implements DataAccess {
         users.clear();
         auths.clear();
         games.clear();
+        moves.clear();
         nextGameID = 1;
     }
 
@@ -58,24 +72,69 @@ public class MemoryDataAccess implements DataAccess {
                 game.whiteUsername(),
                 game.blackUsername(),
                 game.gameName(),
-                game.game()
+                new ChessGame(game.game())
         );
         games.put(gameID, newGame);
+        moves.put(gameID, new TreeMap<>());
         return gameID;
     }
 
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
-        return games.get(gameID);
+        GameData snapshot = games.get(gameID);
+        return snapshot == null ? null : load(snapshot);
     }
 
     @Override
     public Collection<GameData> listGames() throws DataAccessException {
-        return games.values();
+        List<GameData> list = new ArrayList<>(games.size());
+        for (GameData snapshot : games.values()) {
+            list.add(load(snapshot));
+        }
+        return list;
     }
 
     @Override
     public void updateGame(GameData game) throws DataAccessException {
-        games.put(game.gameID(), game);
+        if (!games.containsKey(game.gameID())) {
+            return;
+        }
+        games.put(game.gameID(), new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(),
+                game.gameName(), new ChessGame(game.game())));
+        moves.get(game.gameID()).tailMap(game.game().getPly(), true).clear();
+    }
+
+    @Override
+    public void updateGameInfo(GameData game) throws DataAccessException {
+        games.computeIfPresent(game.gameID(), (id, snapshot) -> new GameData(id, game.whiteUsername(),
+                game.blackUsername(), game.gameName(), snapshot.game()));
+    }
+
+    @Override
+    public void appendMove(GameData game, ChessMove move) throws DataAccessException {
+        if (!games.containsKey(game.gameID())) {
+            throw new DataAccessException("Error: Game not found");
+        }
+        int ply = game.game().getPly() - 1;
+        if (moves.get(game.gameID()).putIfAbsent(ply, move) != null) {
+            throw new DataAccessException("Error: move already logged at ply " + ply);
+        }
+        if (MoveLog.isSnapshotDue(ply)) {
+            games.computeIfPresent(game.gameID(), (id, snapshot) -> new GameData(id, snapshot.whiteUsername(),
+                    snapshot.blackUsername(), snapshot.gameName(), new ChessGame(game.game())));
+        }
+    }
+
+    @Override
+    public List<ChessMove> listMoves(int gameID) throws DataAccessException {
+        NavigableMap<Integer, ChessMove> logged = moves.get(gameID);
+        return logged == null ? List.of() : List.copyOf(logged.values());
+    }
+
+    private GameData load(GameData snapshot) throws DataAccessException {
+        ChessGame game = new ChessGame(snapshot.game());
+        MoveLog.replay(game, moves.get(snapshot.gameID()).tailMap(game.getPly(), true).values());
+        return new GameData(snapshot.gameID(), snapshot.whiteUsername(), snapshot.blackUsername(),
+                snapshot.gameName(), game);
     }
 }
@@ -0,0 +1,46 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+
+/**
+ * Rebuilds games from their last snapshot and the moves logged since
+ */
+final class MoveLog {
+
+    /**
+     * Saving a game's full state only this often, and logging single moves in
+     * between, keeps most move writes to a few bytes while bounding the moves
+     * replayed to load a game
+     */
+    static final int SNAPSHOT_PLIES = 32;
+
+    private MoveLog() {
+    }
+
+    /**
+     * @return True if a game's full state should be saved along with the move played at a ply
+     */
+    static boolean isSnapshotDue(int ply) {
+        return (ply + 1) % SNAPSHOT_PLIES == 0;
+    }
+
+    /**
+     * Plays logged moves on a snapshot
+     *
+     * @param game  the snapshot, which is changed in place
+     * @param moves the moves from the snapshot's ply on, in order
+     * @return the game
+     */
+    static ChessGame replay(ChessGame game, Iterable<ChessMove> moves) throws DataAccessException {
+        for (ChessMove move : moves) {
+            try {
+                game.makeMove(move);
+            } catch (InvalidMoveException e) {
+                throw new DataAccessException("Error: corrupt move log at ply " + game.getPly());
+            }
+        }
+        return game;
+    }
+}
@@ -1,21 +1,27 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
 import com.google.gson.Gson;
 import model.AuthData;
 import model.GameData;
 import model.UserData;
 import org.mindrot.jbcrypt.BCrypt;
+import serialization.GameCodec;
+import serialization.Serializer;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import static java.sql.Statement.RETURN_GENERATED_KEYS;
 import static java.sql.Types.NULL;
 
 public class MySqlDataAccess implements DataAccess {
-    private final Gson gson = new Gson();
+    private final Gson gson = Serializer.gson();
     private final String[] createStatements = {
             """
         CREATE TABLE IF NOT EXISTS users (
@@ -38,11 +44,34 @@ public class MySqlDataAccess implements DataAccess {
           whiteUsername VARCHAR(100),
           blackUsername VARCHAR(100),
           gameName VARCHAR(100),
-          gameState TEXT
+          gameState BLOB,
+          snapshotPly INT NOT NULL DEFAULT 0
+        )
+        """,
+            """
+        CREATE TABLE IF NOT EXISTS game_moves (
+          gameID INT NOT NULL,
+          ply INT NOT NULL,
+          moveCode SMALLINT NOT NULL,
+          PRIMARY KEY(gameID, ply),
+          FOREIGN KEY(gameID) REFERENCES games(id) ON DELETE CASCADE
         )
         """
     };
 
+    /* one statement of a transaction */
+    private record Update(String sql, Object... params) {
+    }
+
+    /*
+     * Each game row joined with the moves logged since its snapshot, in the
+     * order to replay them, so a game loads in one round trip
+     */
+    private static final String SELECT_GAMES = """
+            SELECT g.id, g.whiteUsername, g.blackUsername, g.gameName, g.gameState, m.moveCode
+            FROM games g LEFT JOIN game_moves m ON m.gameID = g.id AND m.ply >= g.snapshotPly
+            """;
+
     public MySqlDataAccess() throws DataAccessException {
         DatabaseManager.createDatabase();
         try (var conn = DatabaseManager.getConnection()) {
@@ -54,6 +83,7 @@ public class MySqlDataAccess implements DataAccess {
 
 
     public void clear() throws DataAccessException {
+        executeUpdate("DELETE FROM game_moves");
         executeUpdate("DELETE FROM games");
         executeUpdate("DELETE FROM users");
     }
@@ -117,66 +147,129 @@ public class MySqlDataAccess implements DataAccess {
     }
 
     public int createGame(GameData game) throws DataAccessException {
-        String json = gson.toJson(game.game());
         return executeInsert(
-                "INSERT INTO games(whiteUsername,blackUsername,gameName,gameState) VALUES(?,?,?,?)",
-                game.whiteUsername(), game.blackUsername(), game.gameName(), json
+                "INSERT INTO games(whiteUsername,blackUsername,gameName,gameState,snapshotPly) VALUES(?,?,?,?,?)",
+                game.whiteUsername(), game.blackUsername(), game.gameName(), GameCodec.encode(game.game()),
+                game.game().getPly()
         );
     }
 
     public GameData getGame(int id) throws DataAccessException {
-        String sql = "SELECT * FROM games WHERE id=?";
+        String sql = SELECT_GAMES + " WHERE g.id=? ORDER BY m.ply";
         try (var conn = DatabaseManager.getConnection();
              var ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             try (var rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return new GameData(
-                            id,
-                            rs.getString("whiteUsername"),
-                            rs.getString("blackUsername"),
-                            rs.getString("gameName"),
-                            gson.fromJson(rs.getString("gameState"), ChessGame.class)
-                    );
-                }
+                List<GameData> games = readGames(rs);
+                return games.isEmpty() ? null : games.get(0);
             }
         } catch (SQLException e) {
             throw new DataAccessException("Error: " + e.getMessage());
         }
-        return null;
     }
 
     public Collection<GameData> listGames() throws DataAccessException {
-        Collection<GameData> games = new ArrayList<>();
-        String sql = "SELECT * FROM games";
+        String sql = SELECT_GAMES + " ORDER BY g.id, m.ply";
         try (var conn = DatabaseManager.getConnection();
              var ps = conn.prepareStatement(sql);
              var rs = ps.executeQuery()) {
-            while (rs.next()) {
-                games.add(new GameData(
-                        rs.getInt("id"),
-                        rs.getString("whiteUsername"),
-                        rs.getString("blackUsername"),
-                        rs.getString("gameName"),
-                        gson.fromJson(rs.getString("gameState"), ChessGame.class)
-                ));
-            }
+            return readGames(rs);
         } catch (SQLException e) {
             throw new DataAccessException("Error: " + e.getMessage());
         }
-        return games;
     }
 
     public void updateGame(GameData game) throws DataAccessException {
-        String json = gson.toJson(game.game());
-        executeUpdate(
-                "UPDATE games SET whiteUsername=?,blackUsername=?,gameName=?,gameState=? WHERE id=?",
-                game.whiteUsername(), game.blackUsername(), game.gameName(), json, game.gameID()
+        int ply = game.game().getPly();
+        executeInTransaction(
+                new Update("UPDATE games SET whiteUsername=?,blackUsername=?,gameName=?,gameState=?,snapshotPly=? "
+                        + "WHERE id=?", game.whiteUsername(), game.blackUsername(), game.gameName(),
+                        GameCodec.encode(game.game()), ply, game.gameID()),
+                new Update("DELETE FROM game_moves WHERE gameID=? AND ply>=?", game.gameID(), ply)
         );
     }
 
+    public void updateGameInfo(GameData game) throws DataAccessException {
+        executeUpdate("UPDATE games SET whiteUsername=?,blackUsername=?,gameName=? WHERE id=?",
+                game.whiteUsername(), game.blackUsername(), game.gameName(), game.gameID());
+    }
+
+    public void appendMove(GameData game, ChessMove move) throws DataAccessException {
+        int ply = game.game().getPly() - 1;
+        Update insert = new Update("INSERT INTO game_moves(gameID,ply,moveCode) VALUES(?,?,?)",
+                game.gameID(), ply, Move.encode(move));
+        if (MoveLog.isSnapshotDue(ply)) {
+            executeInTransaction(insert, new Update("UPDATE games SET gameState=?,snapshotPly=? WHERE id=?",
+                    GameCodec.encode(game.game()), ply + 1, game.gameID()));
+        } else {
+            executeInTransaction(insert);
+        }
+    }
+
+    public List<ChessMove> listMoves(int gameID) throws DataAccessException {
+        List<ChessMove> moves = new ArrayList<>();
+        String sql = "SELECT moveCode FROM game_moves WHERE gameID=? ORDER BY ply";
+        try (var conn = DatabaseManager.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, gameID);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    moves.add(Move.toChessMove(rs.getInt("moveCode")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error: " + e.getMessage());
+        }
+        return moves;
+    }
+
     // HELPERS
 
+    /**
+     * Reads rows of SELECT_GAMES, rebuilding each game from its snapshot and
+     * the moves on the rows that follow it
+     */
+    private List<GameData> readGames(ResultSet rs) throws SQLException, DataAccessException {
+        List<GameData> games = new ArrayList<>();
+        boolean more = rs.next();
+        while (more) {
+            int id = rs.getInt("id");
+            String white = rs.getString("whiteUsername");
+            String black = rs.getString("blackUsername");
+            String name = rs.getString("gameName");
+            ChessGame game = readGame(rs.getBytes("gameState"));
+            List<ChessMove> moves = new ArrayList<>();
+            do {
+                int move = rs.getInt("moveCode");
+                if (!rs.wasNull()) {
+                    moves.add(Move.toChessMove(move));
+                }
+                more = rs.next();
+            } while (more && rs.getInt("id") == id);
+            games.add(new GameData(id, white, black, name, game == null ? null : MoveLog.replay(game, moves)));
+        }
+        return games;
+    }
+
+    /**
+     * Decodes a stored game. Games saved as JSON before the binary form, which
+     * always start with '{' where the binary form starts with its version, are
+     * still read.
+     */
+    private ChessGame readGame(byte[] state) throws DataAccessException {
+        if (state == null) {
+            return null;
+        }
+        try {
+            if (state.length > 0 && state[0] == '{') {
+                return gson.fromJson(new String(state, StandardCharsets.UTF_8), ChessGame.class);
+            }
+            return GameCodec.decode(state);
+        } catch (RuntimeException e) {
+            throw new DataAccessException("Error: corrupt game state: " + e.getMessage());
+        }
+    }
+
     private void configureDatabase() throws DataAccessException {
         try (var conn = DatabaseManager.getConnection()) {
             for (String stmt : createStatements) {
@@ -184,21 +277,73 @@ public class MySqlDataAccess implements DataAccess {
                     ps.executeUpdate();
                 }
             }
+            // bring games tables made by earlier versions up to date
+            if ("text".equalsIgnoreCase(columnType(conn, "gameState"))) {
+                try (var alter = conn.prepareStatement("ALTER TABLE games MODIFY gameState BLOB")) {
+                    alter.executeUpdate();
+                }
+            }
+            if (columnType(conn, "snapshotPly") == null) {
+                try (var alter = conn.prepareStatement(
+                        "ALTER TABLE games ADD COLUMN snapshotPly INT NOT NULL DEFAULT 0")) {
+                    alter.executeUpdate();
+                }
+            }
         } catch (SQLException e) {
             throw new DataAccessException("Error: " + e.getMessage());
         }
     }
 
+    /**
+     * @return the data type of a column of the games table, or null if there is no such column
+     */
+    private static String columnType(Connection conn, String column) throws SQLException {
+        String sql = """
+                SELECT data_type FROM information_schema.columns
+                WHERE table_schema = DATABASE() AND table_name = 'games' AND column_name = ?
+                """;
+        try (var ps = conn.prepareStatement(sql)) {
+            ps.setString(1, column);
+            try (var rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private void executeInTransaction(Update... updates) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (Update update : updates) {
+                    try (PreparedStatement ps = conn.prepareStatement(update.sql())) {
+                        bind(ps, update.params());
+                        ps.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error: " + e.getMessage());
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            if (params[i] == null) {
+                ps.setNull(i+1, NULL);
+            } else {
+                ps.setObject(i+1, params[i]);
+            }
+        }
+    }
+
     private int executeInsert(String sql, Object... params) throws DataAccessException {
         try (var conn = DatabaseManager.getConnection();
              var ps = conn.prepareStatement(sql, RETURN_GENERATED_KEYS)) {
-            for (int i = 0; i < params.length; i++) {
-                if (params[i] == null) {
-                    ps.setNull(i+1, NULL);
-                } else {
-                    ps.setObject(i+1, params[i]);
-                }
-            }
+            bind(ps, params);
             ps.executeUpdate();
             try (var rs = ps.getGeneratedKeys()) {
                 return rs.next() ? rs.getInt(1) : 0;
@@ -211,13 +356,7 @@ public class MySqlDataAccess implements DataAccess {
     private void executeUpdate(String sql, Object... params) throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            for (int i = 0; i < params.length; i++) {
-                if (params[i] == null) {
-                    ps.setNull(i+1, NULL);
-                } else {
-                    ps.setObject(i+1, params[i]);
-                }
-            }
+            bind(ps, params);
             ps.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException("Error: " + e.getMessage());
@@ -0,0 +1,114 @@
+package handler;
+
+import com.google.gson.Gson;
+import model.AnalysisData;
+import serialization.Serializer;
+import service.AnalysisService;
+import spark.Request;
+import spark.Response;
+
+import java.util.Map;
+
+public class AnalysisHandler {
+    private final AnalysisService service;
+    private final Gson gson = Serializer.gson();
+
+    public AnalysisHandler(AnalysisService service) {
+        this.service = service;
+    }
+
+    public Object analyze(Request req, Response res) {
+        try {
+            String authToken = req.headers("Authorization");
+            int gameID = gameID(req);
+            Map<?, ?> body = gson.fromJson(req.body(), Map.class);
+
+            int depth = number(body, "depth", AnalysisService.DEFAULT_DEPTH);
+            int threads = number(body, "threads", 1);
+
+            int jobID = service.submit(authToken, gameID, depth, threads);
+            return respond(service.result(authToken, gameID, jobID), jobID, res);
+        } catch (Exception e) {
+            return handleException(e, res);
+        }
+    }
+
+    public Object result(Request req, Response res) {
+        try {
+            String authToken = req.headers("Authorization");
+            int jobID = param(req, ":job");
+            return respond(service.result(authToken, gameID(req), jobID), jobID, res);
+        } catch (Exception e) {
+            return handleException(e, res);
+        }
+    }
+
+    /**
+     * Answers with the analysis, or 202 and the job's id to poll while it runs
+     */
+    private Object respond(AnalysisData analysis, int jobID, Response res) {
+        if (analysis == null) {
+            res.status(202);
+            return gson.toJson(Map.of("jobID", jobID));
+        }
+        res.status(200);
+        return gson.toJson(analysis);
+    }
+
+    public Object cancel(Request req, Response res) {
+        try {
+            String authToken = req.headers("Authorization");
+            boolean cancelled = service.cancel(authToken, gameID(req));
+            res.status(200);
+            return gson.toJson(Map.of("cancelled", cancelled));
+        } catch (Exception e) {
+            return handleException(e, res);
+        }
+    }
+
+    /**
+     * @return a whole number field of the request body, or the default if it is missing
+     */
+    private static int number(Map<?, ?> body, String name, int defaultValue) {
+        if (body == null || body.get(name) == null) {
+            return defaultValue;
+        }
+        try {
+            return ((Double) body.get(name)).intValue();
+        } catch (ClassCastException ex) {
+            throw new IllegalArgumentException("Error: bad request");
+        }
+    }
+
+    private static int gameID(Request req) {
+        return param(req, ":id");
+    }
+
+    private static int param(Request req, String name) {
+        try {
+            return Integer.parseInt(req.params(name));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Error: bad request");
+        }
+    }
+
+    private Object handleException(Exception e, Response res) {
+        String msg = e.getMessage().toLowerCase();
+        if (msg.contains("unauthorized")) {
+            res.status(401);
+        } else if (msg.contains("not found")) {
+            res.status(404);
+        } else if (msg.contains("bad request")) {
+            res.status(400);
+        } else if (msg.contains("too many")) {
+            res.status(429);
+        } else if (msg.contains("queue is full") || msg.contains("timed out")) {
+            res.status(503);
+        } else if (msg.contains("cancelled")) {
+            res.status(409);
+        } else {
+            res.status(500);
+        }
+        return gson.toJson(Map.of("message", e.getMessage()));
+    }
+}
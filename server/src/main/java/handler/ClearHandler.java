@@ -2,6 +2,7 @@ package handler;
 
 import com.google.gson.Gson;
 import service.ClearService;
+import serialization.Serializer;
 import spark.Request;
 import spark.Response;
 
@@ -9,7 +10,7 @@ import java.util.Map;
 
 public class ClearHandler {
     private final ClearService service;
-    private final Gson gson = new Gson();
+    private final Gson gson = Serializer.gson();
 
     public ClearHandler(ClearService service) {
         this.service = service;
@@ -2,6 +2,7 @@ package handler;
 
 import com.google.gson.Gson;
 import dataaccess.DataAccessException;
+import serialization.Serializer;
 import service.GameService;
 import spark.Request;
 import spark.Response;
@@ -10,7 +11,7 @@ import java.util.Map;
 
 public class GameHandler {
     private final GameService service;
-    private final Gson gson = new Gson();
+    private final Gson gson = Serializer.gson();
 
     public GameHandler(GameService service) {
         this.service = service;
@@ -28,8 +29,9 @@ public class GameHandler {
             }
 
             String gameName = body.get("gameName").toString();
+            String fen = body.get("fen") == null ? null : body.get("fen").toString();
 
-            var gameID = service.createGame(authToken, gameName);
+            var gameID = service.createGame(authToken, gameName, fen);
             res.status(200);
             return gson.toJson(Map.of("gameID", gameID));
         } catch (Exception e) {
@@ -68,7 +70,17 @@ public class GameHandler {
                 throw new IllegalArgumentException("Error: bad request");
             }
 
-            service.joinGame(authToken, gameID, playerColor);
+            boolean withBot = Boolean.TRUE.equals(body.get("bot"));
+            long botMillis = 0;
+            if (body.get("botMillis") != null) {
+                try {
+                    botMillis = ((Double) body.get("botMillis")).longValue();
+                } catch (ClassCastException ex) {
+                    throw new IllegalArgumentException("Error: bad request");
+                }
+            }
+
+            service.joinGame(authToken, gameID, playerColor, withBot, botMillis);
             res.status(200);
             return "{}";
         } catch (Exception e) {
@@ -3,6 +3,7 @@ package handler;
 import com.google.gson.Gson;
 import service.UserService;
 import model.UserData;
+import serialization.Serializer;
 import spark.Request;
 import spark.Response;
 
@@ -10,7 +11,7 @@ import java.util.Map;
 
 public class UserHandler {
     private final UserService service;
-    private final Gson gson = new Gson();
+    private final Gson gson = Serializer.gson();
 
     public UserHandler(UserService service) {
         this.service = service;
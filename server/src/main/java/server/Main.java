@@ -1,9 +1,25 @@
 package server;
 
+import service.EngineService;
+
+import java.nio.file.Path;
+
 public class Main {
     public static void main(String[] args) {
-        Server server = new Server();
+        int tableMegabytes = EngineService.DEFAULT_TABLE_MB;
+        Path openingBook = null;
+        Path tablebase = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--hash-mb") && i + 1 < args.length) {
+                tableMegabytes = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--book") && i + 1 < args.length) {
+                openingBook = Path.of(args[++i]);
+            } else if (args[i].equals("--tablebase") && i + 1 < args.length) {
+                tablebase = Path.of(args[++i]);
+            }
+        }
+        Server server = new Server(tableMegabytes, openingBook, tablebase);
         int actualPort = server.run(8080);
         System.out.println("Server started on port: " + actualPort);
     }
-}
\ No newline at end of file
+}
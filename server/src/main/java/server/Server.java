@@ -4,18 +4,48 @@ import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
 import dataaccess.MemoryDataAccess;
 import dataaccess.MySqlDataAccess;
+import engine.OpeningBook;
+import engine.Tablebase;
+import handler.AnalysisHandler;
 import handler.ClearHandler;
 import handler.GameHandler;
 import handler.UserHandler;
+import service.AnalysisService;
+import service.BotService;
 import service.ClearService;
+import service.EngineService;
 import service.GameService;
 import service.UserService;
 import spark.Spark;
 import websocket.WebSocketHandler;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 import static spark.Spark.port;
 
 public class Server {
+    private final int tableMegabytes;
+    private final Path openingBook;
+    private final Path tablebase;
+    private EngineService engineService;
+    private AnalysisService analysisService;
+    private BotService botService;
+
+    public Server() {
+        this(EngineService.DEFAULT_TABLE_MB, null, null);
+    }
+
+    /**
+     * @param tableMegabytes memory for the engine's shared transposition table
+     * @param openingBook    opening book file for the engine, or null for none
+     * @param tablebase      endgame tablebase file for the engine, or null for none
+     */
+    public Server(int tableMegabytes, Path openingBook, Path tablebase) {
+        this.tableMegabytes = tableMegabytes;
+        this.openingBook = openingBook;
+        this.tablebase = tablebase;
+    }
 
     public int run(int desiredPort) {
         Spark.port(desiredPort);
@@ -31,15 +61,26 @@ public class Server {
         }
 
         UserService userService = new UserService(db);
-        GameService gameService = new GameService(db);
         ClearService clearService = new ClearService(db);
+        try {
+            engineService = new EngineService(tableMegabytes,
+                    openingBook == null ? null : OpeningBook.open(openingBook),
+                    tablebase == null ? null : Tablebase.open(tablebase));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to open engine files", e);
+        }
+
+        analysisService = new AnalysisService(db, engineService);
+        botService = new BotService(engineService);
+        GameService gameService = new GameService(db, botService);
 
-        WebSocketHandler.configure(gameService, userService, db);
+        WebSocketHandler.configure(gameService, userService, db, engineService, botService);
         Spark.webSocket("/ws", WebSocketHandler.class);
 
         UserHandler userHandler = new UserHandler(userService);
         GameHandler gameHandler = new GameHandler(gameService);
         ClearHandler clearHandler = new ClearHandler(clearService);
+        AnalysisHandler analysisHandler = new AnalysisHandler(analysisService);
 
         // Register user endpoints
         Spark.post("/user", userHandler::register);
@@ -51,6 +92,11 @@ public class Server {
         Spark.get("/game", gameHandler::listGames);
         Spark.put("/game", gameHandler::joinGame);
 
+        // Register analysis endpoints
+        Spark.post("/game/:id/analysis", analysisHandler::analyze);
+        Spark.get("/game/:id/analysis/:job", analysisHandler::result);
+        Spark.delete("/game/:id/analysis", analysisHandler::cancel);
+
         // Register clear endpoint
         Spark.delete("/db", clearHandler::clear);
 
@@ -61,6 +107,15 @@ public class Server {
     }
 
     public void stop() {
+        if (analysisService != null) {
+            analysisService.shutdown();
+        }
+        if (botService != null) {
+            botService.shutdown();
+        }
+        if (engineService != null) {
+            engineService.shutdown();
+        }
         Spark.stop();
         Spark.awaitStop();
     }
@@ -0,0 +1,355 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+import chess.MoveList;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import engine.Search;
+import engine.SearchLimits;
+import engine.SearchResult;
+import model.AnalysisData;
+import model.AuthData;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs engine analysis of stored games on its own bounded pool of low
+ * priority worker threads, so analysis never ties up the threads that serve
+ * requests and moves.
+ * <p>
+ * A request submits a job and gets back its id at once; the result is then
+ * fetched by polling. Jobs wait in a bounded queue; when it is full new
+ * requests are turned away rather than piling up. Each user may only have a
+ * few jobs queued or running at once. A job that runs past its time limit, or
+ * that its user cancels, is interrupted, which stops the search. Finished
+ * jobs can be fetched until a minute after their time limit. Finished
+ * analyses are cached by position and depth, so asking again for the same
+ * position is free, whatever thread count it is asked with.
+ * <p>
+ * An analysis scores every legal move in the game's current position rather
+ * than the moves that were played. The move log only reaches back to the
+ * game's start while no snapshot has replaced its first position, so the
+ * played moves could not be scored for longer games or games set up from a
+ * FEN.
+ */
+public class AnalysisService {
+    public static final int DEFAULT_DEPTH = 6;
+    public static final int MAX_DEPTH = 12;
+    public static final int MAX_THREADS = EngineService.MAX_SEARCH_THREADS;
+    public static final int DEFAULT_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    public static final int DEFAULT_QUEUE_SIZE = 16;
+    public static final int DEFAULT_USER_LIMIT = 2;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+    public static final long RESULT_MILLIS = 60_000;
+    public static final int CACHE_SIZE = 1024;
+
+    /* centipawn scores beyond this count as completely won when scoring accuracy */
+    private static final int ACCURACY_SCORE_CAP = 2000;
+
+    /**
+     * A submitted analysis, which gives its user's slot back once it finishes
+     * or is cancelled
+     */
+    private static final class Job extends FutureTask<AnalysisData> {
+        private final int id;
+        private final String username;
+        private final int gameID;
+        private final AtomicInteger userJobs;
+        private volatile boolean timedOut;
+
+        Job(int id, String username, int gameID, AtomicInteger userJobs, Callable<AnalysisData> analysis) {
+            super(analysis);
+            this.id = id;
+            this.username = username;
+            this.gameID = gameID;
+            this.userJobs = userJobs;
+        }
+
+        @Override
+        protected void done() {
+            if (userJobs != null) {
+                userJobs.decrementAndGet();
+            }
+        }
+    }
+
+    private record CacheKey(long positionKey, int depth) {
+    }
+
+    private final DataAccess db;
+    private final EngineService engine;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService reaper;
+    private final int userLimit;
+    private final long timeoutMillis;
+    private final AtomicInteger nextJobID = new AtomicInteger();
+    private final Map<String, AtomicInteger> userJobs = new ConcurrentHashMap<>();
+    private final Map<Integer, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<CacheKey, AnalysisData> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, AnalysisData> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    public AnalysisService(DataAccess db, EngineService engine) {
+        this(db, engine, DEFAULT_THREADS, DEFAULT_QUEUE_SIZE, DEFAULT_USER_LIMIT, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param threads       worker threads for analysis
+     * @param queueSize     jobs that may wait for a worker before requests are turned away
+     * @param userLimit     jobs one user may have queued or running at once
+     * @param timeoutMillis how long a job may take, including time in the queue
+     */
+    public AnalysisService(DataAccess db, EngineService engine, int threads, int queueSize, int userLimit,
+                           long timeoutMillis) {
+        this.db = db;
+        this.engine = engine;
+        this.userLimit = userLimit;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "analysis-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "analysis-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a single-threaded analysis of a game's current position
+     *
+     * @param depth the search depth in plies, from 1 to MAX_DEPTH
+     * @return the job's id, for fetching the result
+     */
+    public int submit(String authToken, int gameID, int depth) throws DataAccessException {
+        return submit(authToken, gameID, depth, 1);
+    }
+
+    /**
+     * Starts analyzing a game's current position. A position analyzed before
+     * at the same depth makes a job that has already finished.
+     *
+     * @param depth   the search depth in plies, from 1 to MAX_DEPTH
+     * @param threads the threads each search uses, from 1 to MAX_THREADS
+     * @return the job's id, for fetching the result
+     */
+    public int submit(String authToken, int gameID, int depth, int threads) throws DataAccessException {
+        AuthData auth = validateAuth(authToken);
+        if (depth < 1 || depth > MAX_DEPTH || threads < 1 || threads > MAX_THREADS) {
+            throw new DataAccessException("Error: bad request");
+        }
+        GameData data = db.getGame(gameID);
+        if (data == null) {
+            throw new DataAccessException("Error: Game not found");
+        }
+
+        ChessGame game = data.game();
+        CacheKey key = new CacheKey(game.getZobristKey(), depth);
+        String username = auth.username();
+        AnalysisData cached = cached(key);
+        if (cached != null) {
+            Job job = new Job(nextJobID.incrementAndGet(), username, gameID, null,
+                    () -> new AnalysisData(gameID, cached.depth(), cached.score(), cached.mateIn(), cached.line(),
+                            cached.moves()));
+            job.run();
+            track(job);
+            return job.id;
+        }
+
+        AtomicInteger running = userJobs.computeIfAbsent(username, name -> new AtomicInteger());
+        if (running.incrementAndGet() > userLimit) {
+            running.decrementAndGet();
+            throw new DataAccessException("Error: too many analysis requests");
+        }
+        Job job = new Job(nextJobID.incrementAndGet(), username, gameID, running, () -> {
+            AnalysisData result = analyze(gameID, game, depth, threads);
+            if (!Thread.currentThread().isInterrupted()) {
+                synchronized (cache) {
+                    cache.put(key, result);
+                }
+            }
+            return result;
+        });
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            running.decrementAndGet();
+            throw new DataAccessException("Error: analysis queue is full");
+        }
+        track(job);
+        reaper.schedule(() -> {
+            job.timedOut = !job.isDone();
+            stop(job);
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        return job.id;
+    }
+
+    /**
+     * Gets the result of one of the user's analyses of a game
+     *
+     * @return the analysis, or null if it has not finished yet
+     */
+    public AnalysisData result(String authToken, int gameID, int jobID) throws DataAccessException {
+        String username = validateAuth(authToken).username();
+        Job job = jobs.get(jobID);
+        if (job == null || !job.username.equals(username) || job.gameID != gameID) {
+            throw new DataAccessException("Error: analysis not found");
+        }
+        if (!job.isDone()) {
+            return null;
+        }
+        try {
+            return job.get();
+        } catch (CancellationException e) {
+            throw new DataAccessException(job.timedOut ? "Error: analysis timed out" : "Error: analysis cancelled");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Error: analysis cancelled");
+        } catch (ExecutionException e) {
+            throw new DataAccessException("Error: analysis failed", e.getCause());
+        }
+    }
+
+    /**
+     * Cancels the user's queued and running analyses of a game
+     *
+     * @return True if any were cancelled
+     */
+    public boolean cancel(String authToken, int gameID) throws DataAccessException {
+        String username = validateAuth(authToken).username();
+        boolean cancelled = false;
+        for (Job job : jobs.values()) {
+            if (job.username.equals(username) && job.gameID == gameID) {
+                cancelled |= stop(job);
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Cancels a job, taking it out of the queue if it has not started, so
+     * cancelled jobs never hold places in the queue
+     *
+     * @return True if the job had not finished
+     */
+    private boolean stop(Job job) {
+        if (!job.cancel(true)) {
+            return false;
+        }
+        executor.remove(job);
+        return true;
+    }
+
+    /**
+     * Stops the workers, interrupting any running analyses
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        reaper.shutdownNow();
+    }
+
+    /**
+     * Keeps a job so its result can be fetched, until a while after its time limit
+     */
+    private void track(Job job) {
+        jobs.put(job.id, job);
+        reaper.schedule(() -> jobs.remove(job.id), timeoutMillis + RESULT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private AnalysisData cached(CacheKey key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    /**
+     * Searches the position, then each legal move one ply shallower, so every
+     * move is scored against the best
+     */
+    private AnalysisData analyze(int gameID, ChessGame game, int depth, int threads) {
+        SearchResult best = engine.analyze(game, SearchLimits.depth(depth).withThreads(threads));
+        MoveList legal = new MoveList();
+        game.generateMoves(legal);
+        List<AnalysisData.MoveAnalysis> moves = new ArrayList<>(legal.size());
+        ChessGame after = new ChessGame(game);
+        for (int i = 0; i < legal.size() && !Thread.currentThread().isInterrupted(); i++) {
+            after.playMove(legal.get(i));
+            int score = -engine.analyze(after, SearchLimits.depth(Math.max(1, depth - 1)).withThreads(threads))
+                    .score();
+            after.unmakeMove();
+            if (Search.isMateScore(score)) {
+                score += score > 0 ? -1 : 1;
+            }
+            int loss = Math.max(0, best.score() - score);
+            moves.add(new AnalysisData.MoveAnalysis(Move.toChessMove(legal.get(i)), score, loss,
+                    accuracy(best.score(), score)));
+        }
+        moves.sort(Comparator.comparingInt(AnalysisData.MoveAnalysis::loss));
+        return new AnalysisData(gameID, best.depth(), best.score(), mateIn(best.score()),
+                best.principalVariation(), List.copyOf(moves));
+    }
+
+    /**
+     * @return moves to mate for the side to move (negative when it is being mated), or null
+     */
+    private static Integer mateIn(int score) {
+        if (!Search.isMateScore(score)) {
+            return null;
+        }
+        int moves = (Search.MATE - Math.abs(score) + 1) / 2;
+        return score > 0 ? moves : -moves;
+    }
+
+    /**
+     * Scores a move from 0 to 100 by how much of the side's winning chances it
+     * keeps compared to the best move
+     */
+    private static double accuracy(int bestScore, int score) {
+        double lost = winChance(bestScore) - winChance(score);
+        double accuracy = 103.1668 * Math.exp(-0.04354 * Math.max(0, lost)) - 3.1669;
+        return Math.round(Math.max(0, Math.min(100, accuracy)) * 10) / 10.0;
+    }
+
+    /**
+     * @return the side's chance of winning, from 0 to 100, for a centipawn score
+     */
+    private static double winChance(int score) {
+        int capped = Math.max(-ACCURACY_SCORE_CAP, Math.min(ACCURACY_SCORE_CAP, score));
+        return 50 + 50 * (2 / (1 + Math.exp(-0.00368208 * capped)) - 1);
+    }
+
+    private AuthData validateAuth(String token) throws DataAccessException {
+        AuthData auth = db.getAuth(token);
+        if (auth == null) {
+            throw new DataAccessException("Error: unauthorized");
+        }
+        return auth;
+    }
+}
@@ -0,0 +1,140 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import engine.SearchLimits;
+import engine.SearchResult;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Plays the engine's side of games against the bot. Moves are searched on
+ * the bot's own pool of worker threads, so a search never holds up the
+ * threads serving requests and moves, and each search stops at the game's
+ * time budget for a move. At most one search runs for a game at a time.
+ * <p>
+ * A game's budget is chosen when the bot is seated in it. Budgets are only
+ * kept in memory, so after a restart the bot's games use the default.
+ */
+public class BotService {
+    /**
+     * The reserved username that seats the bot in a game
+     */
+    public static final String USERNAME = "chessbot";
+    public static final int DEFAULT_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    public static final long DEFAULT_MOVE_MILLIS = 1000;
+    public static final long MIN_MOVE_MILLIS = 100;
+    public static final long MAX_MOVE_MILLIS = 30_000;
+
+    private final EngineService engine;
+    private final ExecutorService executor;
+    private final long defaultMoveMillis;
+    private final Set<Integer> thinking = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Long> moveMillis = new ConcurrentHashMap<>();
+
+    public BotService(EngineService engine) {
+        this(engine, DEFAULT_THREADS, DEFAULT_MOVE_MILLIS);
+    }
+
+    /**
+     * @param threads           worker threads for bot searches
+     * @param defaultMoveMillis how long the bot may think about each move in
+     *                          games seated without a budget of their own
+     */
+    public BotService(EngineService engine, int threads, long defaultMoveMillis) {
+        this.engine = engine;
+        this.defaultMoveMillis = defaultMoveMillis;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "bot-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return True if the username is the bot's
+     */
+    public static boolean isBot(String username) {
+        return USERNAME.equals(username);
+    }
+
+    /**
+     * Sets how long the bot may think about each move in a game
+     *
+     * @param millis from MIN_MOVE_MILLIS to MAX_MOVE_MILLIS, or 0 for the default
+     */
+    public void setMoveMillis(int gameID, long millis) {
+        if (millis == 0) {
+            moveMillis.remove(gameID);
+            return;
+        }
+        if (millis < MIN_MOVE_MILLIS || millis > MAX_MOVE_MILLIS) {
+            throw new IllegalArgumentException("Bot move time out of range: " + millis);
+        }
+        moveMillis.put(gameID, millis);
+    }
+
+    /**
+     * @return how long the bot may think about each move in a game
+     */
+    public long getMoveMillis(int gameID) {
+        return moveMillis.getOrDefault(gameID, defaultMoveMillis);
+    }
+
+    /**
+     * Starts searching for the bot's move in a game, unless the game is over
+     * or the bot is already thinking about it
+     *
+     * @param onMove called on a worker thread with the chosen move, which it must
+     *               check is still for the game's current position
+     * @return True if a search was started
+     */
+    public boolean requestMove(int gameID, ChessGame game, Consumer<ChessMove> onMove) {
+        if (game.getStatus().isGameOver() || !thinking.add(gameID)) {
+            return false;
+        }
+        ChessGame position = new ChessGame(game);
+        SearchLimits limits = SearchLimits.time(getMoveMillis(gameID));
+        try {
+            executor.execute(() -> {
+                SearchResult result;
+                try {
+                    result = engine.bestMove(position, limits);
+                } finally {
+                    thinking.remove(gameID);
+                }
+                // the game is free for the next request before the move is played, so a
+                // reply that comes in straight after it is never turned away
+                if (result.bestMove() != null && !Thread.currentThread().isInterrupted()) {
+                    onMove.accept(result.bestMove());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            thinking.remove(gameID);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return True if the bot is searching for a move in the game
+     */
+    public boolean isThinking(int gameID) {
+        return thinking.contains(gameID);
+    }
+
+    /**
+     * Stops the workers, interrupting any running searches
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,98 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import engine.OpeningBook;
+import engine.Search;
+import engine.SearchLimits;
+import engine.SearchResult;
+import engine.Tablebase;
+import engine.TranspositionTable;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs engine searches for the server. Every search shares one
+ * transposition table, so engine memory stays fixed no matter how many
+ * searches run at once. Positions in the opening book are answered from the
+ * book without searching, and small endgames from the tablebases.
+ * <p>
+ * Parallel searches run their helper threads on one pool of daemon threads,
+ * sized for a single search of MAX_SEARCH_THREADS. Helpers of searches that
+ * overlap wait for a free thread, and are skipped if their search finishes
+ * first, so the number of engine threads stays fixed too.
+ */
+public class EngineService {
+    public static final int DEFAULT_TABLE_MB = 64;
+
+    /**
+     * The most threads one search may use
+     */
+    public static final int MAX_SEARCH_THREADS = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+    private final TranspositionTable table;
+    private final OpeningBook book;
+    private final Tablebase tablebase;
+    private final ExecutorService helpers;
+
+    public EngineService(int tableMegabytes) {
+        this(tableMegabytes, null, null);
+    }
+
+    /**
+     * @param book      the opening book, or null for none
+     * @param tablebase the endgame tablebases, or null for none
+     */
+    public EngineService(int tableMegabytes, OpeningBook book, Tablebase tablebase) {
+        this.table = new TranspositionTable(tableMegabytes);
+        this.book = book;
+        this.tablebase = tablebase;
+        AtomicInteger count = new AtomicInteger();
+        this.helpers = Executors.newFixedThreadPool(Math.max(1, MAX_SEARCH_THREADS - 1), runnable -> {
+            Thread thread = new Thread(runnable, "search-helper-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SearchResult bestMove(ChessGame game, SearchLimits limits) {
+        if (book != null) {
+            ChessMove move = book.pick(game, ThreadLocalRandom.current());
+            if (move != null) {
+                return new SearchResult(move, 0, 0, 0, 0, List.of(move));
+            }
+        }
+        return Search.bestMove(game, limits, table, tablebase, helpers);
+    }
+
+    /**
+     * Searches a position without consulting the opening book, so the result
+     * always carries a real evaluation
+     */
+    public SearchResult analyze(ChessGame game, SearchLimits limits) {
+        return Search.bestMove(game, limits, table, tablebase, helpers);
+    }
+
+    /**
+     * @return the tablebase value of the game's position for the side to move,
+     * or Tablebase.MISS if there are no tablebases or none covers it
+     */
+    public int probeTablebase(ChessGame game) {
+        return tablebase == null ? Tablebase.MISS : tablebase.probe(game);
+    }
+
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Stops the helper threads, interrupting any running helper searches
+     */
+    public void shutdown() {
+        helpers.shutdownNow();
+    }
+}
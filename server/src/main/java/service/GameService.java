@@ -1,6 +1,8 @@
 package service;
 
+import chess.ChessBoard;
 import chess.ChessGame;
+import chess.ChessPiece;
 import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
 import model.AuthData;
@@ -10,28 +12,90 @@ import java.util.Collection;
 
 public class GameService {
     private final DataAccess db;
+    private final BotService bots;
 
     public GameService(DataAccess db) {
+        this(db, null);
+    }
+
+    /**
+     * @param bots the bot to give each game's move time to, or null to seat
+     *             the bot without one
+     */
+    public GameService(DataAccess db, BotService bots) {
         this.db = db;
+        this.bots = bots;
     }
 
     public int createGame(String authToken, String gameName) throws DataAccessException {
+        return createGame(authToken, gameName, null);
+    }
+
+    /**
+     * Creates a game starting from a position
+     *
+     * @param fen the starting position in FEN, or null for the standard one
+     */
+    public int createGame(String authToken, String gameName, String fen) throws DataAccessException {
         validateAuth(authToken);
         if (gameName == null || gameName.isEmpty()) {
             throw new DataAccessException("Error: bad request");
         }
 
-        GameData newGame = new GameData(0, null, null, gameName, new ChessGame());
+        ChessGame game;
+        try {
+            game = fen == null ? new ChessGame() : ChessGame.fromFen(fen);
+        } catch (IllegalArgumentException e) {
+            throw new DataAccessException("Error: bad request");
+        }
+        if (!isPlayable(game)) {
+            throw new DataAccessException("Error: bad request");
+        }
+        GameData newGame = new GameData(0, null, null, gameName, game);
         return db.createGame(newGame);
     }
 
+    /**
+     * @return True if each team has exactly one king and the team that just
+     * moved is not left in check
+     */
+    private static boolean isPlayable(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            if (Long.bitCount(board.getPieces(color, ChessPiece.PieceType.KING)) != 1) {
+                return false;
+            }
+        }
+        return !game.isInCheck(game.getTeamTurn().opponent());
+    }
+
     public Collection<GameData> listGames(String authToken) throws DataAccessException {
         validateAuth(authToken);
         return db.listGames();
     }
 
     public void joinGame(String authToken, int gameID, String playerColor) throws DataAccessException {
+        joinGame(authToken, gameID, playerColor, false);
+    }
+
+    public void joinGame(String authToken, int gameID, String playerColor, boolean withBot) throws DataAccessException {
+        joinGame(authToken, gameID, playerColor, withBot, 0);
+    }
+
+    /**
+     * Joins a game as the given color
+     *
+     * @param withBot   True to seat the bot as the other color
+     * @param botMillis how long the bot may think about each move, from
+     *                  BotService.MIN_MOVE_MILLIS to MAX_MOVE_MILLIS, or 0 for the default
+     */
+    public void joinGame(String authToken, int gameID, String playerColor, boolean withBot, long botMillis)
+            throws DataAccessException {
         AuthData auth = validateAuth(authToken);
+        if (botMillis != 0 && (!withBot || botMillis < BotService.MIN_MOVE_MILLIS
+                || botMillis > BotService.MAX_MOVE_MILLIS)) {
+            throw new DataAccessException("Error: bad request");
+        }
         GameData game = db.getGame(gameID);
 
         if (game == null) {
@@ -46,15 +110,30 @@ public class GameService {
             if (white != null && !white.equals(username)) {
                 throw new DataAccessException("Error: Color already taken");
             }
-            db.updateGame(new GameData(gameID, username, black, game.gameName(), game.game()));
+            db.updateGameInfo(new GameData(gameID, username, withBot ? botSeat(black) : black, game.gameName(),
+                    game.game()));
         } else if ("BLACK".equalsIgnoreCase(playerColor)) {
             if (black != null && !black.equals(username)) {
                 throw new DataAccessException("Error: Color already taken");
             }
-            db.updateGame(new GameData(gameID, white, username, game.gameName(), game.game()));
+            db.updateGameInfo(new GameData(gameID, withBot ? botSeat(white) : white, username, game.gameName(),
+                    game.game()));
         } else {
             throw new DataAccessException("Error: bad request");
         }
+        if (withBot && bots != null) {
+            bots.setMoveMillis(gameID, botMillis);
+        }
+    }
+
+    /**
+     * @return the bot's username for a seat it may take
+     */
+    private static String botSeat(String seated) throws DataAccessException {
+        if (seated != null && !BotService.isBot(seated)) {
+            throw new DataAccessException("Error: Color already taken");
+        }
+        return BotService.USERNAME;
     }
 
     private AuthData validateAuth(String token) throws DataAccessException {
@@ -16,7 +16,7 @@ public class UserService {
     }
 
     public AuthData register(UserData user) throws DataAccessException {
-        if (db.getUser(user.username()) != null) {
+        if (BotService.isBot(user.username()) || db.getUser(user.username()) != null) {
             throw new DataAccessException("Error: already taken");
         }
         db.createUser(user);
@@ -2,13 +2,20 @@ package websocket;
 
 import chess.ChessGame;
 import chess.ChessMove;
+import chess.GameStatus;
+import chess.InvalidMoveException;
 import com.google.gson.Gson;
+import engine.Tablebase;
 import model.GameData;
 import model.AuthData;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketConnect;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
+import serialization.GameCodec;
+import serialization.Serializer;
+import service.BotService;
+import service.EngineService;
 import service.GameService;
 import service.UserService;
 import dataaccess.DataAccess;
@@ -20,6 +27,7 @@ import websocket.messages.ErrorMessage;
 import websocket.messages.ServerMessage;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -32,16 +40,34 @@ public class WebSocketHandler {
     private static final Map<Session, String> SESSION_TO_USER = new ConcurrentHashMap<>();
     private static final Map<Session, Integer> SESSION_TO_GAME = new ConcurrentHashMap<>();
     private static final Set<Integer> RESIGNED_GAMES = ConcurrentHashMap.newKeySet();
+    /* how many more times the bot searches again when its move cannot be saved */
+    private static final int BOT_RETRIES = 2;
 
-    private final Gson gson = new Gson();
+    private final Gson gson = Serializer.gson();
     private static GameService gameService;
     private static UserService userService;
     private static DataAccess db;
+    private static EngineService engineService;
+    private static BotService botService;
 
     public static void configure(GameService gs, UserService us, DataAccess dataAccess) {
+        configure(gs, us, dataAccess, null);
+    }
+
+    public static void configure(GameService gs, UserService us, DataAccess dataAccess, EngineService engine) {
+        configure(gs, us, dataAccess, engine, null);
+    }
+
+    /**
+     * @param bots plays the bot's moves in games it is seated in, or null for no bot
+     */
+    public static void configure(GameService gs, UserService us, DataAccess dataAccess, EngineService engine,
+                                 BotService bots) {
         gameService = gs;
         userService = us;
         db = dataAccess;
+        engineService = engine;
+        botService = bots;
     }
 
     private String getUsernameForToken(String authToken) {
@@ -65,13 +91,30 @@ public class WebSocketHandler {
 
     private void sendMessage(Session session, ServerMessage msg) {
         try {
-            if (session.isOpen()) {
-                session.getRemote().sendString(gson.toJson(msg));
+            // bot moves are broadcast from the bot's threads, so sends to a session can race
+            synchronized (session) {
+                if (!session.isOpen()) {
+                    return;
+                }
+                if (msg instanceof LoadGameMessage load && wantsBinary(session)) {
+                    session.getRemote().sendBytes(ByteBuffer.wrap(GameCodec.encode(load.getGame())));
+                } else {
+                    session.getRemote().sendString(gson.toJson(msg));
+                }
             }
         } catch (IOException ignored) {
         }
     }
 
+    /**
+     * @return True if the session connected with {@code ?format=binary}, asking
+     * for games as binary frames in the GameCodec form rather than LOAD_GAME JSON
+     */
+    private static boolean wantsBinary(Session session) {
+        var format = session.getUpgradeRequest().getParameterMap().get("format");
+        return format != null && format.contains("binary");
+    }
+
     private void sendError(Session session, String msg) {
         sendMessage(session, new ErrorMessage(msg));
     }
@@ -99,18 +142,49 @@ public class WebSocketHandler {
         }
     }
 
+    private void broadcastError(int gameId, String message) {
+        for (Session s : GAME_SESSIONS.getOrDefault(gameId, new CopyOnWriteArraySet<>())) {
+            sendError(s, message);
+        }
+    }
+
     private void notifyCheckOrMate(int gameId, ChessGame chess, GameData data) {
-        if (chess.isInCheckmate(ChessGame.TeamColor.WHITE)) {
-            broadcastNotification(gameId, data.whiteUsername() + " is in checkmate");
-        } else if (chess.isInCheckmate(ChessGame.TeamColor.BLACK)) {
-            broadcastNotification(gameId, data.blackUsername() + " is in checkmate");
-        } else if (chess.isInCheck(ChessGame.TeamColor.WHITE)) {
-            broadcastNotification(gameId, data.whiteUsername() + " is in check");
-        } else if (chess.isInCheck(ChessGame.TeamColor.BLACK)) {
-            broadcastNotification(gameId, data.blackUsername() + " is in check");
+        GameStatus status = chess.getStatus();
+        String player = status.team() == ChessGame.TeamColor.WHITE ? data.whiteUsername() : data.blackUsername();
+        switch (status.type()) {
+            case CHECKMATE -> broadcastNotification(gameId, player + " is in checkmate");
+            case STALEMATE -> broadcastNotification(gameId, player + " is in stalemate");
+            case REPETITION -> broadcastNotification(gameId, "The game is drawn by threefold repetition");
+            case FIFTY_MOVES -> broadcastNotification(gameId, "The game is drawn by the fifty-move rule");
+            case CHECK -> broadcastNotification(gameId, player + " is in check");
+            case ONGOING -> {
+            }
         }
     }
 
+    /**
+     * Announces the tablebase result once a move reaches an endgame the
+     * tablebases cover
+     */
+    private void notifyTablebaseResult(int gameId, ChessGame chess, GameData data, boolean wasCovered) {
+        if (engineService == null || wasCovered || chess.getStatus().isGameOver()) {
+            return;
+        }
+        int value = engineService.probeTablebase(chess);
+        if (value == Tablebase.MISS) {
+            return;
+        }
+        if (value == Tablebase.DRAW) {
+            broadcastNotification(gameId, "Endgame tablebase: the game is a draw with best play");
+            return;
+        }
+        ChessGame.TeamColor winner = Tablebase.isWin(value) ? chess.getTeamTurn() : chess.getTeamTurn().opponent();
+        String player = winner == ChessGame.TeamColor.WHITE ? data.whiteUsername() : data.blackUsername();
+        int moves = (Tablebase.distanceToMate(value) + 1) / 2;
+        broadcastNotification(gameId, "Endgame tablebase: " + player + " mates in " + moves
+                + (moves == 1 ? " move" : " moves") + " with best play");
+    }
+
     @OnWebSocketConnect
     public void onConnect(Session session) {
     }
@@ -171,6 +245,7 @@ public class WebSocketHandler {
                 : Objects.equals(user, data.blackUsername()) ? "BLACK"
                 : "OBSERVER";
         notifyOthers(gameId, session, user + " connected as " + role);
+        requestBotMove(gameId, data, chess);
     }
 
     private void handleMakeMove(Session session, UserGameCommand cmd, int gameId, String user) {
@@ -187,7 +262,7 @@ public class WebSocketHandler {
             return;
         }
 
-        if (RESIGNED_GAMES.contains(gameId)) {
+        if (RESIGNED_GAMES.contains(gameId) || chess.getStatus().isGameOver()) {
             sendError(session, "Error: game is over");
             return;
         }
@@ -206,12 +281,29 @@ public class WebSocketHandler {
             sendError(session, "Error: missing move");
             return;
         }
+        boolean wasCovered = engineService != null && engineService.probeTablebase(chess) != Tablebase.MISS;
         try {
             chess.makeMove(move);
         } catch (Exception e) {
             sendError(session, "Error: invalid move");
             return;
         }
+        if (!publishMove(gameId, data, chess, move, user, session, wasCovered)) {
+            sendError(session, "Error: could not update game");
+        }
+    }
+
+    /**
+     * Logs a move and tells everyone in the game, then starts the bot's reply
+     * if it is the bot's turn. Only one move is logged for each ply, so if
+     * another move was saved first, such as a bot move racing a player's,
+     * this one is turned away.
+     *
+     * @param mover the session that made the move, or null for the bot
+     * @return False if the move could not be saved
+     */
+    private boolean publishMove(int gameId, GameData data, ChessGame chess, ChessMove move, String user,
+                                Session mover, boolean wasCovered) {
         GameData updated = new GameData(
                 data.gameID(),
                 data.whiteUsername(),
@@ -220,17 +312,87 @@ public class WebSocketHandler {
                 chess
         );
         try {
-            db.updateGame(updated);
+            db.appendMove(updated, move);
         } catch (DataAccessException e) {
-            sendError(session, "Error: could not update game");
-            return;
+            return false;
         }
         broadcastGameState(gameId, chess);
         String moveDesc = user + " moved from " +
                 move.getStartPosition().toString() + " to " +
                 move.getEndPosition().toString();
-        notifyOthers(gameId, session, moveDesc);
+        notifyOthers(gameId, mover, moveDesc);
         notifyCheckOrMate(gameId, chess, data);
+        notifyTablebaseResult(gameId, chess, data, wasCovered);
+        requestBotMove(gameId, updated, chess);
+        return true;
+    }
+
+    /**
+     * Hands the position to the bot if it is seated and it is its turn
+     */
+    private void requestBotMove(int gameId, GameData data, ChessGame chess) {
+        requestBotMove(gameId, data, chess, BOT_RETRIES);
+    }
+
+    /**
+     * @param retries how many more times to search again if the move cannot be saved
+     */
+    private void requestBotMove(int gameId, GameData data, ChessGame chess, int retries) {
+        if (botService == null || RESIGNED_GAMES.contains(gameId)) {
+            return;
+        }
+        String toMove = chess.getTeamTurn() == ChessGame.TeamColor.WHITE ? data.whiteUsername() : data.blackUsername();
+        if (!BotService.isBot(toMove)) {
+            return;
+        }
+        long positionKey = chess.getZobristKey();
+        botService.requestMove(gameId, chess, move -> playBotMove(gameId, positionKey, move, retries));
+    }
+
+    /**
+     * Plays a move the bot chose, unless the game moved on while it was thinking
+     */
+    private void playBotMove(int gameId, long positionKey, ChessMove move, int retries) {
+        GameData data;
+        try {
+            data = db.getGame(gameId);
+        } catch (DataAccessException e) {
+            return;
+        }
+        if (data == null || RESIGNED_GAMES.contains(gameId) || data.game().getZobristKey() != positionKey) {
+            return;
+        }
+        ChessGame chess = data.game();
+        boolean wasCovered = engineService != null && engineService.probeTablebase(chess) != Tablebase.MISS;
+        try {
+            chess.makeMove(move);
+        } catch (InvalidMoveException e) {
+            return;
+        }
+        if (!publishMove(gameId, data, chess, move, BotService.USERNAME, null, wasCovered)) {
+            retryBotMove(gameId, positionKey, retries);
+        }
+    }
+
+    /**
+     * Handles a bot move that could not be saved. A player's move saved first
+     * needs nothing more, but anything else would leave the bot's side stuck,
+     * so everyone in the game is told and the bot searches again.
+     */
+    private void retryBotMove(int gameId, long positionKey, int retries) {
+        GameData data;
+        try {
+            data = db.getGame(gameId);
+        } catch (DataAccessException e) {
+            data = null;
+        }
+        if (data != null && data.game().getZobristKey() != positionKey) {
+            return;
+        }
+        broadcastError(gameId, "Error: could not save the bot's move");
+        if (data != null && retries > 0) {
+            requestBotMove(gameId, data, data.game(), retries - 1);
+        }
     }
 
     private void handleLeave(Session session, UserGameCommand cmd, int gameId, String user) {
@@ -261,7 +423,7 @@ public class WebSocketHandler {
         }
         if (isWhite || isBlack) {
             try {
-                db.updateGame(updated);
+                db.updateGameInfo(updated);
             } catch (DataAccessException e) {
                 sendError(session, "Error: could not update game");
                 return;
@@ -285,7 +447,7 @@ public class WebSocketHandler {
             return;
         }
 
-        if (RESIGNED_GAMES.contains(gameId)) {
+        if (RESIGNED_GAMES.contains(gameId) || data.game().getStatus().isGameOver()) {
             sendError(session, "Error: game is over");
             return;
         }
@@ -311,7 +473,7 @@ public class WebSocketHandler {
             );
         }
         try {
-            db.updateGame(updated);
+            db.updateGameInfo(updated);
         } catch (DataAccessException e) {
             sendError(session, "Error: could not update game");
             return;
@@ -4,6 +4,8 @@ import model.UserData;
 import model.AuthData;
 import model.GameData;
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,7 +20,7 @@ public class DAOClearTest {
     }
 
     @Test
-    void clearRemovesAllData() throws DataAccessException {
+    void clearRemovesAllData() throws Exception {
 
         dao.createUser(new UserData("hunter", "pass", "hunter@email.com"));
         dao.createUser(new UserData("winter", "pass", "winter@email.com"));
@@ -26,7 +28,11 @@ public class DAOClearTest {
         dao.createAuth(new AuthData("tokenH", "hunter"));
         dao.createAuth(new AuthData("tokenW", "winter"));
 
-        dao.createGame(new GameData(0, "hunter", "winter", "TestGame", new ChessGame()));
+        int gameID = dao.createGame(new GameData(0, "hunter", "winter", "TestGame", new ChessGame()));
+        ChessGame game = new ChessGame();
+        ChessMove move = new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        game.makeMove(move);
+        dao.appendMove(new GameData(gameID, "hunter", "winter", "TestGame", game), move);
 
         dao.clear();
 
@@ -35,5 +41,6 @@ public class DAOClearTest {
         assertNull(dao.getAuth("tokenH"));
         assertNull(dao.getAuth("tokenW"));
         assertTrue(dao.listGames().isEmpty());
+        assertTrue(dao.listMoves(gameID).isEmpty());
     }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package dataaccess;
 
 import model.GameData;
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
 import org.junit.jupiter.api.*;
 import java.util.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -85,4 +87,105 @@ public class DAOGameTest {
     void updateGameNullThrows() {
         assertThrows(NullPointerException.class, () -> dao.updateGame(null));
     }
-}
\ No newline at end of file
+
+    @Test
+    void appendMoveReplaysOnLoad() throws Exception {
+        int id = dao.createGame(new GameData(0, "hunter", "winter", "MoveGame", new ChessGame()));
+        List<ChessMove> played = play(id, 3);
+
+        GameData fetched = dao.getGame(id);
+        assertEquals(3, fetched.game().getPly());
+        assertEquals("hunter", fetched.whiteUsername());
+        assertEquals(played, dao.listMoves(id));
+        assertEquals(fetched.game(), dao.listGames().iterator().next().game());
+    }
+
+    @Test
+    void appendMoveKeepsLoadingAcrossSnapshots() throws Exception {
+        int id = dao.createGame(new GameData(0, null, null, "LongGame", new ChessGame()));
+        ChessGame expected = new ChessGame();
+        for (ChessMove move : play(id, MoveLog.SNAPSHOT_PLIES + 3)) {
+            expected.makeMove(move);
+        }
+
+        assertEquals(expected.toFen(), dao.getGame(id).game().toFen());
+        assertEquals(MoveLog.SNAPSHOT_PLIES + 3, dao.listMoves(id).size());
+    }
+
+    @Test
+    void appendMoveRejectsSecondMoveForPly() throws Exception {
+        int id = dao.createGame(new GameData(0, null, null, "RaceGame", new ChessGame()));
+        play(id, 1);
+
+        ChessGame other = new ChessGame();
+        ChessMove move = new ChessMove(ChessPosition.of(2, 4), ChessPosition.of(4, 4), null);
+        other.makeMove(move);
+        assertThrows(DataAccessException.class, () -> dao.appendMove(new GameData(id, null, null, "RaceGame", other), move));
+        assertEquals(1, dao.listMoves(id).size());
+    }
+
+    @Test
+    void updateGameReplacesLoggedMoves() throws Exception {
+        int id = dao.createGame(new GameData(0, null, null, "ResetGame", new ChessGame()));
+        play(id, 4);
+        dao.updateGame(new GameData(id, null, null, "ResetGame", new ChessGame()));
+
+        assertEquals(new ChessGame(), dao.getGame(id).game());
+        assertTrue(dao.listMoves(id).isEmpty());
+    }
+
+    @Test
+    void updateGameInfoKeepsMovesAppendedSinceTheGameWasRead() throws Exception {
+        int id = dao.createGame(new GameData(0, "hunter", "chessbot", "SeatGame", new ChessGame()));
+        GameData read = dao.getGame(id);
+        List<ChessMove> played = play(id, 1);
+        dao.updateGameInfo(new GameData(id, null, read.blackUsername(), read.gameName(), read.game()));
+
+        GameData fetched = dao.getGame(id);
+        assertNull(fetched.whiteUsername());
+        assertEquals("chessbot", fetched.blackUsername());
+        assertEquals(1, fetched.game().getPly());
+        assertEquals(played, dao.listMoves(id));
+    }
+
+    @Test
+    void snapshotsKeepSeatChanges() throws Exception {
+        int id = dao.createGame(new GameData(0, "hunter", "winter", "SeatGame", new ChessGame()));
+        play(id, MoveLog.SNAPSHOT_PLIES - 4);
+        dao.updateGameInfo(new GameData(id, "hunter", null, "Renamed", null));
+        play(id, 8);
+
+        GameData fetched = dao.getGame(id);
+        assertNull(fetched.blackUsername());
+        assertEquals("Renamed", fetched.gameName());
+        assertEquals(MoveLog.SNAPSHOT_PLIES + 4, fetched.game().getPly());
+    }
+
+    @Test
+    void appendMoveNonexistentGameThrows() throws Exception {
+        ChessGame game = new ChessGame();
+        ChessMove move = new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        game.makeMove(move);
+        assertThrows(DataAccessException.class, () -> dao.appendMove(new GameData(42, null, null, "NoGame", game), move));
+    }
+
+    /**
+     * Shuffles the knights out and back a number of plies, logging each move
+     * as the server does
+     *
+     * @return the moves played
+     */
+    private List<ChessMove> play(int id, int plies) throws Exception {
+        int[][] squares = {{1, 7, 3, 6}, {8, 7, 6, 6}, {3, 6, 1, 7}, {6, 6, 8, 7}};
+        List<ChessMove> played = new ArrayList<>();
+        for (int i = 0; i < plies; i++) {
+            int[] move = squares[i % squares.length];
+            ChessMove knight = new ChessMove(ChessPosition.of(move[0], move[1]), ChessPosition.of(move[2], move[3]), null);
+            GameData data = dao.getGame(id);
+            data.game().makeMove(knight);
+            dao.appendMove(data, knight);
+            played.add(knight);
+        }
+        return played;
+    }
+}
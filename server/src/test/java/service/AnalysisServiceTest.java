@@ -0,0 +1,184 @@
+package service;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryDataAccess;
+import model.AnalysisData;
+import model.AuthData;
+import model.GameData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisServiceTest {
+
+    private DataAccess db;
+    private AnalysisService service;
+
+    @BeforeEach
+    public void setUp() throws DataAccessException {
+        db = new MemoryDataAccess();
+        db.createAuth(new AuthData("token", "hunter"));
+        db.createAuth(new AuthData("other-token", "other"));
+        service = new AnalysisService(db, new EngineService(1), 1, 1, 1, 30_000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void analyzesEveryLegalMove() throws Exception {
+        int gameID = db.createGame(new GameData(0, null, null, "game", new ChessGame()));
+        AnalysisData analysis = analyze("token", gameID, 3);
+
+        assertEquals(gameID, analysis.gameID());
+        assertEquals(3, analysis.depth());
+        assertEquals(20, analysis.moves().size());
+        assertFalse(analysis.line().isEmpty());
+        assertNull(analysis.mateIn());
+        assertEquals(0, analysis.moves().get(0).loss());
+        for (AnalysisData.MoveAnalysis move : analysis.moves()) {
+            assertTrue(move.accuracy() >= 0 && move.accuracy() <= 100);
+        }
+    }
+
+    @Test
+    public void findsMate() throws Exception {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(1, 7), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        board.addPiece(ChessPosition.of(8, 7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        for (int col = 6; col <= 8; col++) {
+            board.addPiece(ChessPosition.of(7, col), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        int gameID = db.createGame(new GameData(0, null, null, "mate", game));
+
+        AnalysisData analysis = analyze("token", gameID, 3);
+        assertEquals(Integer.valueOf(1), analysis.mateIn());
+        assertEquals(new ChessMove(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null), analysis.line().get(0));
+        assertEquals(100.0, analysis.moves().get(0).accuracy());
+        assertTrue(analysis.moves().get(analysis.moves().size() - 1).loss() > 0);
+    }
+
+    @Test
+    public void analyzesWithSeveralThreads() throws Exception {
+        int gameID = db.createGame(new GameData(0, null, null, "game", new ChessGame()));
+        int jobID = service.submit("token", gameID, 3, AnalysisService.MAX_THREADS);
+        AnalysisData analysis;
+        while ((analysis = service.result("token", gameID, jobID)) == null) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(3, analysis.depth());
+        assertEquals(20, analysis.moves().size());
+        assertEquals(analysis, analyze("token", gameID, 3), "threads do not change the cache key");
+    }
+
+    @Test
+    public void repeatedRequestsUseTheCache() throws Exception {
+        int first = db.createGame(new GameData(0, null, null, "one", new ChessGame()));
+        int second = db.createGame(new GameData(0, null, null, "two", new ChessGame()));
+        AnalysisData analysis = analyze("token", first, 4);
+
+        int jobID = service.submit("other-token", second, 4);
+        AnalysisData again = service.result("other-token", second, jobID);
+        assertNotNull(again, "a cached position is ready at once");
+        assertEquals(second, again.gameID());
+        assertEquals(analysis.moves(), again.moves());
+    }
+
+    @Test
+    public void rejectsBadRequests() throws DataAccessException {
+        int gameID = db.createGame(new GameData(0, null, null, "game", new ChessGame()));
+        assertThrows(DataAccessException.class, () -> service.submit("bad-token", gameID, 3));
+        assertThrows(DataAccessException.class, () -> service.submit("token", gameID + 1, 3));
+        assertThrows(DataAccessException.class, () -> service.submit("token", gameID, 0));
+        assertThrows(DataAccessException.class, () -> service.submit("token", gameID, AnalysisService.MAX_DEPTH + 1));
+        assertThrows(DataAccessException.class, () -> service.submit("token", gameID, 3, 0));
+        assertThrows(DataAccessException.class,
+                () -> service.submit("token", gameID, 3, AnalysisService.MAX_THREADS + 1));
+
+        int jobID = service.submit("token", gameID, 1);
+        assertThrows(DataAccessException.class, () -> service.result("other-token", gameID, jobID));
+        assertThrows(DataAccessException.class, () -> service.result("token", gameID, jobID + 1));
+    }
+
+    @Test
+    public void submitReturnsBeforeTheSearchFinishes() throws Exception {
+        int gameID = db.createGame(new GameData(0, null, null, "game", new ChessGame()));
+        int jobID = service.submit("token", gameID, AnalysisService.MAX_DEPTH);
+
+        assertNull(service.result("token", gameID, jobID));
+        assertTrue(service.cancel("token", gameID));
+    }
+
+    @Test
+    public void limitsJobsPerUserAndCancels() throws Exception {
+        int gameID = db.createGame(new GameData(0, null, null, "game", new ChessGame()));
+        int jobID = service.submit("token", gameID, AnalysisService.MAX_DEPTH);
+
+        DataAccessException limited = assertThrows(DataAccessException.class,
+                () -> service.submit("token", gameID, 2));
+        assertEquals("Error: too many analysis requests", limited.getMessage());
+        assertTrue(service.cancel("token", gameID));
+        DataAccessException cancelled = assertThrows(DataAccessException.class,
+                () -> service.result("token", gameID, jobID));
+        assertEquals("Error: analysis cancelled", cancelled.getMessage());
+        assertDoesNotThrow(() -> service.submit("token", gameID, 1), "the cancelled job gives its slot back");
+    }
+
+    @Test
+    public void cancelledJobsLeaveTheQueue() throws Exception {
+        service.shutdown();
+        service = new AnalysisService(db, new EngineService(1), 1, 1, 2, 30_000);
+        int running = db.createGame(new GameData(0, null, null, "running", new ChessGame()));
+        int queued = db.createGame(new GameData(0, null, null, "queued", new ChessGame()));
+        service.submit("token", running, AnalysisService.MAX_DEPTH);
+        service.submit("token", queued, AnalysisService.MAX_DEPTH);
+
+        assertTrue(service.cancel("token", queued));
+        assertDoesNotThrow(() -> service.submit("other-token", queued, AnalysisService.MAX_DEPTH),
+                "the cancelled job no longer fills the queue");
+        service.cancel("token", running);
+        service.cancel("other-token", queued);
+    }
+
+    @Test
+    public void jobsPastTheirTimeLimitAreStopped() throws Exception {
+        service.shutdown();
+        service = new AnalysisService(db, new EngineService(1), 1, 1, 1, 100);
+        int gameID = db.createGame(new GameData(0, null, null, "game", new ChessGame()));
+        int jobID = service.submit("token", gameID, AnalysisService.MAX_DEPTH);
+
+        DataAccessException timedOut = assertThrows(DataAccessException.class, () -> {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (service.result("token", gameID, jobID) == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        });
+        assertEquals("Error: analysis timed out", timedOut.getMessage());
+    }
+
+    /**
+     * Submits an analysis and polls until it finishes
+     */
+    private AnalysisData analyze(String token, int gameID, int depth) throws Exception {
+        int jobID = service.submit(token, gameID, depth);
+        AnalysisData analysis;
+        while ((analysis = service.result(token, gameID, jobID)) == null) {
+            Thread.sleep(10);
+        }
+        return analysis;
+    }
+}
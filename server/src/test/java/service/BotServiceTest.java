@@ -0,0 +1,94 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BotServiceTest {
+
+    private BotService service;
+
+    @BeforeEach
+    public void setUp() {
+        service = new BotService(new EngineService(1), 2, 200);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void playsALegalMoveOffTheCallersThread() throws InterruptedException, InvalidMoveException {
+        ChessGame game = new ChessGame();
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<ChessMove> played = new AtomicReference<>();
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        assertTrue(service.requestMove(1, game, move -> {
+            played.set(move);
+            thread.set(Thread.currentThread());
+            done.countDown();
+        }));
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        assertNotEquals(Thread.currentThread(), thread.get());
+        assertTrue(game.validMoves(played.get().getStartPosition()).contains(played.get()));
+        game.makeMove(played.get());
+        assertFalse(service.isThinking(1));
+    }
+
+    @Test
+    public void thinksAboutEachGameOnce() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(2);
+
+        assertTrue(service.requestMove(1, new ChessGame(), move -> done.countDown()));
+        assertFalse(service.requestMove(1, new ChessGame(), move -> done.countDown()));
+        assertTrue(service.requestMove(2, new ChessGame(), move -> done.countDown()));
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void doesNotMoveWhenTheGameIsOver() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move("f2", "f3"));
+        game.makeMove(move("e7", "e5"));
+        game.makeMove(move("g2", "g4"));
+        game.makeMove(move("d8", "h4"));
+
+        assertFalse(service.requestMove(1, game, move -> fail("the game is over")));
+    }
+
+    @Test
+    public void eachGameThinksForItsOwnBudget() throws InterruptedException {
+        service.setMoveMillis(2, 5_000);
+        assertEquals(200, service.getMoveMillis(1));
+        assertEquals(5_000, service.getMoveMillis(2));
+        assertThrows(IllegalArgumentException.class, () -> service.setMoveMillis(3, BotService.MAX_MOVE_MILLIS + 1));
+
+        CountDownLatch quick = new CountDownLatch(1);
+        assertTrue(service.requestMove(1, new ChessGame(), move -> quick.countDown()));
+        assertTrue(service.requestMove(2, new ChessGame(), move -> { }));
+        assertTrue(quick.await(10, TimeUnit.SECONDS));
+        Thread.sleep(500);
+        assertTrue(service.isThinking(2), "game 2 has more time than game 1");
+
+        service.setMoveMillis(2, 0);
+        assertEquals(200, service.getMoveMillis(2));
+    }
+
+    private static ChessMove move(String from, String to) {
+        return new ChessMove(ChessPosition.of(from.charAt(1) - '0', from.charAt(0) - 'a' + 1),
+                ChessPosition.of(to.charAt(1) - '0', to.charAt(0) - 'a' + 1), null);
+    }
+}
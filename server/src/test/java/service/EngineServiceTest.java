@@ -0,0 +1,61 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import engine.OpeningBook;
+import engine.OpeningBookBuilder;
+import engine.SearchLimits;
+import engine.SearchResult;
+import engine.Tablebase;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineServiceTest {
+    @Test
+    public void bestMoveIsLegal() {
+        var service = new EngineService(1);
+        ChessGame game = new ChessGame();
+        SearchResult result = service.bestMove(game, SearchLimits.depth(3));
+        assertNotNull(result.bestMove());
+        assertTrue(game.validMoves(result.bestMove().getStartPosition()).contains(result.bestMove()));
+    }
+
+    @Test
+    public void sharedTableSavesWork() {
+        var service = new EngineService(1);
+        ChessGame game = new ChessGame();
+        SearchResult first = service.bestMove(game, SearchLimits.depth(4));
+        SearchResult second = service.bestMove(game, SearchLimits.depth(4));
+        assertTrue(second.nodes() < first.nodes());
+        assertEquals(first.bestMove(), second.bestMove());
+    }
+
+    @Test
+    public void bookMoveSkipsSearch() throws IOException {
+        var builder = new OpeningBookBuilder(OpeningBookBuilder.DEFAULT_MAX_PLY);
+        builder.addPgn(new StringReader("1. d4 d5 *"));
+        Path path = Files.createTempFile("book", ".bin");
+        try {
+            builder.write(path);
+            var service = new EngineService(1, OpeningBook.open(path), null);
+            SearchResult result = service.bestMove(new ChessGame(), SearchLimits.depth(3));
+            assertEquals(new ChessMove(ChessPosition.of(2, 4), ChessPosition.of(4, 4), null), result.bestMove());
+            assertEquals(0, result.nodes());
+        } finally {
+            path.toFile().deleteOnExit();
+        }
+    }
+
+    @Test
+    public void noTablebaseMeansNoProbe() {
+        var service = new EngineService(1);
+        assertEquals(Tablebase.MISS, service.probeTablebase(new ChessGame()));
+    }
+}
@@ -38,6 +38,30 @@ class GameServiceTest {
         assertTrue(gameID > 0);
     }
 
+    @Test
+    void createGameFromFen() throws DataAccessException {
+        String fen = "4k3/8/8/8/8/8/4P3/4K3 b - - 0 30";
+        int gameID = gameService.createGame(authToken, "endgame", fen);
+        assertEquals(fen, db.getGame(gameID).game().toFen());
+        assertThrows(DataAccessException.class, () -> gameService.createGame(authToken, "bad", "not a position"));
+    }
+
+    @Test
+    void createGameRejectsImpossibleFen() {
+        String[] bad = {
+                "8/8/8/8/8/8/4P3/4K3 w - - 0 1",
+                "4k3/8/8/8/8/8/8/3KK3 w - - 0 1",
+                "4k3/8/8/8/8/8/8/4K2r b - - 0 1",
+                "4k3/4R3/8/8/8/8/8/4K3 w - - 0 1",
+        };
+        for (String fen : bad) {
+            DataAccessException e = assertThrows(DataAccessException.class,
+                    () -> gameService.createGame(authToken, "bad", fen), fen);
+            assertEquals("Error: bad request", e.getMessage());
+        }
+        assertDoesNotThrow(() -> gameService.createGame(authToken, "check", "4k3/4R3/8/8/8/8/8/4K3 b - - 0 1"));
+    }
+
     @Test
     void createGameUnauthorized() {
         assertThrows(DataAccessException.class, () -> gameService.createGame("invalid-token", "chess1"));
@@ -81,6 +105,39 @@ class GameServiceTest {
         assertThrows(DataAccessException.class, () -> gameService.joinGame("token2", gameID, "BLACK"));
     }
 
+    @Test
+    void joinGameWithBot() throws DataAccessException {
+        int gameID = gameService.createGame(authToken, "chess1");
+        gameService.joinGame(authToken, gameID, "BLACK", true);
+
+        GameData game = db.getGame(gameID);
+        assertEquals(BotService.USERNAME, game.whiteUsername());
+        assertEquals("hunter", game.blackUsername());
+    }
+
+    @Test
+    void joinGameWithBotSetsItsMoveTime() throws DataAccessException {
+        BotService bots = new BotService(new EngineService(1), 1, BotService.DEFAULT_MOVE_MILLIS);
+        try {
+            GameService withBots = new GameService(db, bots);
+            int gameID = withBots.createGame(authToken, "chess1");
+            withBots.joinGame(authToken, gameID, "WHITE", true, 250);
+            assertEquals(250, bots.getMoveMillis(gameID));
+
+            assertThrows(DataAccessException.class, () -> withBots.joinGame(authToken, gameID, "WHITE", true, 1));
+            assertThrows(DataAccessException.class, () -> withBots.joinGame(authToken, gameID, "WHITE", false, 250));
+        } finally {
+            bots.shutdown();
+        }
+    }
+
+    @Test
+    void joinGameWithBotSeatTaken() throws DataAccessException {
+        int gameID = gameService.createGame(authToken, "chess1");
+        gameService.joinGame(authToken, gameID, "WHITE");
+        assertThrows(DataAccessException.class, () -> gameService.joinGame(authToken, gameID, "BLACK", true));
+    }
+
     @Test
     void joinGameInvalidColor() throws DataAccessException {
         int gameID = gameService.createGame(authToken, "chess1");
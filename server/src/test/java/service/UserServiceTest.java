@@ -31,6 +31,12 @@ class UserServiceTest {
                 () -> service.register(new UserData("hunter", "byu", "email")));
     }
 
+    @Test
+    void registerBotName() {
+        assertThrows(DataAccessException.class,
+                () -> service.register(new UserData(BotService.USERNAME, "byu", "email")));
+    }
+
     @Test
     void loginSuccess() throws DataAccessException {
         service.register(new UserData("hunter", "byu", "email"));
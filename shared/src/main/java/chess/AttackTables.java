@@ -0,0 +1,219 @@
+package chess;
+
+/**
+ * Precomputed attack masks for every piece type.
+ * <p>
+ * Knight, king and pawn attacks come straight from lookup tables. Rook and
+ * bishop attacks use magic bitboards: the blockers on a square's rays are
+ * multiplied by a per-square magic number to index a table holding the
+ * attacks for that exact blocker set, so every slider lookup is constant time.
+ * The magic numbers below were found offline by random search; only the
+ * tables are built when the class loads.
+ */
+public final class AttackTables {
+
+    private static final int[][] KNIGHT_STEPS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {-1, 2}, {1, -2}, {-1, -2}};
+    private static final int[][] KING_STEPS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}, {1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] ROOK_MAGIC_NUMBERS = {
+            0x0A80004000801220L, 0x8040004010002008L, 0x2080200010008008L, 0x1100100008210004L,
+            0xC200209084020008L, 0x2100010004000208L, 0x0400081000822421L, 0x0200010422048844L,
+            0x0800800080400024L, 0x0001402000401000L, 0x3000801000802001L, 0x4400800800100083L,
+            0x0904802402480080L, 0x4040800400020080L, 0x0018808042000100L, 0x4040800080004100L,
+            0x0040048001458024L, 0x00A0004000205000L, 0x3100808010002000L, 0x4825010010000820L,
+            0x5004808008000401L, 0x2024818004000A00L, 0x0005808002000100L, 0x2100060004806104L,
+            0x0080400880008421L, 0x4062220600410280L, 0x010A004A00108022L, 0x0000100080080080L,
+            0x0021000500080010L, 0x0044000202001008L, 0x0000100400080102L, 0xC020128200040545L,
+            0x0080002000400040L, 0x0000804000802004L, 0x0000120022004080L, 0x010A386103001001L,
+            0x9010080080800400L, 0x8440020080800400L, 0x0004228824001001L, 0x000000490A000084L,
+            0x0080002000504000L, 0x200020005000C000L, 0x0012088020420010L, 0x0010010080080800L,
+            0x0085001008010004L, 0x0002000204008080L, 0x0040413002040008L, 0x0000304081020004L,
+            0x0080204000800080L, 0x3008804000290100L, 0x1010100080200080L, 0x2008100208028080L,
+            0x5000850800910100L, 0x8402019004680200L, 0x0120911028020400L, 0x0000008044010200L,
+            0x0020850200244012L, 0x0020850200244012L, 0x0000102001040841L, 0x140900040A100021L,
+            0x000200282410A102L, 0x000200282410A102L, 0x000200282410A102L, 0x4048240043802106L
+    };
+
+    private static final long[] BISHOP_MAGIC_NUMBERS = {
+            0x40106000A1160020L, 0x0020010250810120L, 0x2010010220280081L, 0x002806004050C040L,
+            0x0002021018000000L, 0x2001112010000400L, 0x0881010120218080L, 0x1030820110010500L,
+            0x0000120222042400L, 0x2000020404040044L, 0x8000480094208000L, 0x0003422A02000001L,
+            0x000A220210100040L, 0x8004820202226000L, 0x0018234854100800L, 0x0100004042101040L,
+            0x0004001004082820L, 0x0010000810010048L, 0x1014004208081300L, 0x2080818802044202L,
+            0x0040880C00A00100L, 0x0080400200522010L, 0x0001000188180B04L, 0x0080249202020204L,
+            0x1004400004100410L, 0x00013100A0022206L, 0x2148500001040080L, 0x4241080011004300L,
+            0x4020848004002000L, 0x10101380D1004100L, 0x0008004422020284L, 0x01010A1041008080L,
+            0x0808080400082121L, 0x0808080400082121L, 0x0091128200100C00L, 0x0202200802010104L,
+            0x8C0A020200440085L, 0x01A0008080B10040L, 0x0889520080122800L, 0x100902022202010AL,
+            0x04081A0816002000L, 0x0000681208005000L, 0x8170840041008802L, 0x0A00004200810805L,
+            0x0830404408210100L, 0x2602208106006102L, 0x1048300680802628L, 0x2602208106006102L,
+            0x0602010120110040L, 0x0941010801043000L, 0x000040440A210428L, 0x0008240020880021L,
+            0x0400002012048200L, 0x00AC102001210220L, 0x0220021002009900L, 0x84440C080A013080L,
+            0x0001008044200440L, 0x0004C04410841000L, 0x2000500104011130L, 0x1A0C010011C20229L,
+            0x0044800112202200L, 0x0434804908100424L, 0x0300404822C08200L, 0x48081010008A2A80L
+    };
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    private static final Magic[] ROOK_MAGICS = new Magic[64];
+    private static final Magic[] BISHOP_MAGICS = new Magic[64];
+
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = stepAttacks(square, KNIGHT_STEPS);
+            KING_ATTACKS[square] = stepAttacks(square, KING_STEPS);
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] = stepAttacks(square, new int[][]{{1, 1}, {1, -1}});
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] = stepAttacks(square, new int[][]{{-1, 1}, {-1, -1}});
+        }
+        for (int square = 0; square < 64; square++) {
+            ROOK_MAGICS[square] = Magic.build(square, ROOK_DIRECTIONS, ROOK_MAGIC_NUMBERS[square]);
+            BISHOP_MAGICS[square] = Magic.build(square, BISHOP_DIRECTIONS, BISHOP_MAGIC_NUMBERS[square]);
+        }
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                fillLines(a, b, ROOK_DIRECTIONS);
+                fillLines(a, b, BISHOP_DIRECTIONS);
+            }
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color attacks from a square
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return ROOK_MAGICS[square].attacks(occupied);
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return BISHOP_MAGICS[square].attacks(occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared row, column
+     * or diagonal, or 0 if they are not aligned
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @return every square on the row, column or diagonal through both squares
+     * (edge to edge), or 0 if they are not aligned
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    private static void fillLines(int a, int b, int[][] directions) {
+        long bitA = Bitboards.bit(a);
+        long bitB = Bitboards.bit(b);
+        if (a == b || (slidingAttacks(a, 0, directions) & bitB) == 0) {
+            return;
+        }
+        BETWEEN[a][b] = slidingAttacks(a, bitB, directions) & slidingAttacks(b, bitA, directions);
+        LINE[a][b] = (slidingAttacks(a, 0, directions) & slidingAttacks(b, 0, directions)) | bitA | bitB;
+    }
+
+    private static long stepAttacks(int square, int[][] steps) {
+        long attacks = 0;
+        for (int[] step : steps) {
+            int row = Bitboards.row(square) + step[0];
+            int col = Bitboards.column(square) + step[1];
+            if (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+                attacks |= Bitboards.bit(Bitboards.square(row, col));
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Walks each ray until it leaves the board or hits a blocker (inclusive)
+     */
+    static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] d : directions) {
+            int row = Bitboards.row(square) + d[0];
+            int col = Bitboards.column(square) + d[1];
+            while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+                long bit = Bitboards.bit(Bitboards.square(row, col));
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                row += d[0];
+                col += d[1];
+            }
+        }
+        return attacks;
+    }
+
+    private record Magic(long mask, long magic, int shift, long[] table) {
+
+        long attacks(long occupied) {
+            return table[(int) (((occupied & mask) * magic) >>> shift)];
+        }
+
+        static Magic build(int square, int[][] directions, long magic) {
+            long mask = relevantMask(square, directions);
+            int shift = 64 - Long.bitCount(mask);
+            long[] table = new long[1 << (64 - shift)];
+            boolean[] filled = new boolean[table.length];
+
+            long subset = 0;
+            do {
+                int index = (int) ((subset * magic) >>> shift);
+                long attacks = slidingAttacks(square, subset, directions);
+                if (filled[index] && table[index] != attacks) {
+                    throw new IllegalStateException("Magic number collision on square " + square);
+                }
+                filled[index] = true;
+                table[index] = attacks;
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+            return new Magic(mask, magic, shift, table);
+        }
+
+        /**
+         * Squares whose occupancy can change the attacks, i.e. each ray minus its last square
+         */
+        private static long relevantMask(int square, int[][] directions) {
+            long mask = 0;
+            for (int[] d : directions) {
+                int row = Bitboards.row(square) + d[0];
+                int col = Bitboards.column(square) + d[1];
+                while (row + d[0] >= 1 && row + d[0] <= 8 && col + d[1] >= 1 && col + d[1] <= 8) {
+                    mask |= Bitboards.bit(Bitboards.square(row, col));
+                    row += d[0];
+                    col += d[1];
+                }
+            }
+            return mask;
+        }
+    }
+}
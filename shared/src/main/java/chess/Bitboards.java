@@ -0,0 +1,72 @@
+package chess;
+
+/**
+ * Helpers for working with 64-bit board masks.
+ * <p>
+ * Squares are numbered 0-63 starting at a1 (row 1, column 1) and moving
+ * across each row, so bit {@code (row - 1) * 8 + (col - 1)} represents the
+ * square at that row and column.
+ */
+public final class Bitboards {
+
+    public static final int NO_SQUARE = -1;
+
+    private Bitboards() {
+    }
+
+    /**
+     * @return the square index for a 1-based row and column
+     */
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    /**
+     * @return the square index for a position
+     */
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return the 1-based row of a square index
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the 1-based column of a square index
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @return a mask with only the given square set
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * @return the lowest set square in the mask, or NO_SQUARE if it is empty
+     */
+    public static int first(long mask) {
+        return mask == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(mask);
+    }
+
+    /**
+     * @return the index of a piece's bitboard, grouped by color then type
+     */
+    public static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * @return a position object for a square index
+     */
+    public static ChessPosition position(int square) {
+        return ChessPosition.of(square);
+    }
+}
@@ -0,0 +1,116 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Castling rights packed into four bits, one per side of the board for each
+ * team.
+ * <p>
+ * A right is lost for good once the king or that rook moves or the rook is
+ * captured, so after any move the rights are masked by a per-square table for
+ * the move's start and end squares. Checking whether castling is legal is then
+ * a few mask tests rather than a look back over the game's moves.
+ */
+public final class Castling {
+
+    public static final int NONE = 0;
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL = 15;
+
+    private static final int WHITE_KING = 4;
+    private static final int BLACK_KING = 60;
+    private static final int[] KEPT_RIGHTS = new int[64];
+
+    static {
+        Arrays.fill(KEPT_RIGHTS, ALL);
+        KEPT_RIGHTS[WHITE_KING] = ALL & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        KEPT_RIGHTS[WHITE_KING + 3] = ALL & ~WHITE_KINGSIDE;
+        KEPT_RIGHTS[WHITE_KING - 4] = ALL & ~WHITE_QUEENSIDE;
+        KEPT_RIGHTS[BLACK_KING] = ALL & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        KEPT_RIGHTS[BLACK_KING + 3] = ALL & ~BLACK_KINGSIDE;
+        KEPT_RIGHTS[BLACK_KING - 4] = ALL & ~BLACK_QUEENSIDE;
+    }
+
+    private Castling() {
+    }
+
+    /**
+     * @return the rights left after a move between two squares
+     */
+    public static int afterMove(int rights, int from, int to) {
+        return rights & KEPT_RIGHTS[from] & KEPT_RIGHTS[to];
+    }
+
+    /**
+     * @return the kingside right for a team
+     */
+    public static int kingside(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+    }
+
+    /**
+     * @return the queenside right for a team
+     */
+    public static int queenside(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+    }
+
+    /**
+     * @return the square a team's king starts on
+     */
+    public static int kingSquare(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_KING : BLACK_KING;
+    }
+
+    /**
+     * @return True if a king move between two squares is a castling move
+     */
+    public static boolean isCastle(ChessPiece moved, int from, int to) {
+        return moved.getPieceType() == ChessPiece.PieceType.KING && Math.abs(to - from) == 2;
+    }
+
+    /**
+     * @return the square the rook starts on when the king castles to a square
+     */
+    static int rookFrom(int kingTo) {
+        return (kingTo & 7) == 6 ? kingTo + 1 : kingTo - 2;
+    }
+
+    /**
+     * @return the square the rook ends on when the king castles to a square
+     */
+    static int rookTo(int kingTo) {
+        return (kingTo & 7) == 6 ? kingTo - 1 : kingTo + 1;
+    }
+
+    /**
+     * Works out the rights a board allows when nothing is known about how it
+     * was reached: each king and rook still on its starting square is assumed
+     * never to have moved.
+     */
+    public static int infer(ChessBoard board) {
+        int rights = NONE;
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            int king = kingSquare(color);
+            if (!isPiece(board, king, color, ChessPiece.PieceType.KING)) {
+                continue;
+            }
+            if (isPiece(board, king + 3, color, ChessPiece.PieceType.ROOK)) {
+                rights |= kingside(color);
+            }
+            if (isPiece(board, king - 4, color, ChessPiece.PieceType.ROOK)) {
+                rights |= queenside(color);
+            }
+        }
+        return rights;
+    }
+
+    private static boolean isPiece(ChessBoard board, int square, ChessGame.TeamColor color,
+                                   ChessPiece.PieceType type) {
+        ChessPiece piece = board.getPiece(square);
+        return piece != null && piece.getTeamColor() == color && piece.getPieceType() == type;
+    }
+}
@@ -1,7 +1,6 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -12,10 +11,36 @@ import java.util.Objects;
 public class ChessBoard {
     private final ChessPiece[][] squares = new ChessPiece[8][8];
 
+    /*
+     * Bitboards mirror squares so the rules engine can use mask arithmetic.
+     * They are transient and rebuilt lazily, along with the king squares,
+     * Zobrist key and evaluation totals, which keeps boards created by Gson
+     * (which fills squares directly) consistent.
+     */
+    private transient long[] pieceBitboards;
+    private transient long[] colorBitboards;
+    private transient long occupied;
+    private transient int[] kingSquares;
+    private transient long zobristKey;
+    private transient int middlegameScore;
+    private transient int endgameScore;
+    private transient int phase;
+
     public ChessBoard() {
 
     }
 
+    /**
+     * Creates a copy of another board
+     *
+     * @param other the board to copy
+     */
+    public ChessBoard(ChessBoard other) {
+        for (int row = 0; row < 8; row++) {
+            System.arraycopy(other.squares[row], 0, squares[row], 0, 8);
+        }
+    }
+
     /**
      * Adds a chess piece to the chessboard
      *
@@ -23,7 +48,28 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+        setPiece(Bitboards.square(position), piece);
+    }
+
+    /**
+     * Places a piece (or null) on a square index, keeping the bitboards in sync
+     *
+     * @param square the square index, see {@link Bitboards}
+     * @param piece  the piece to place, or null to empty the square
+     */
+    public void setPiece(int square, ChessPiece piece) {
+        ensureBitboards();
+        ChessPiece previous = squares[square >>> 3][square & 7];
+        if (previous != null) {
+            toggle(square, previous, -1);
+        }
+        squares[square >>> 3][square & 7] = piece;
+        if (piece != null) {
+            toggle(square, piece, 1);
+        }
+        if (isKing(previous) || isKing(piece)) {
+            updateKingSquares();
+        }
     }
 
     /**
@@ -37,18 +83,171 @@ public class ChessBoard {
         return squares[position.getRow() - 1][position.getColumn() - 1];
     }
 
+    /**
+     * Gets a chess piece by square index
+     *
+     * @param square the square index, see {@link Bitboards}
+     * @return the piece on the square, or null if it is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return squares[square >>> 3][square & 7];
+    }
+
+    /**
+     * @return mask of the squares holding the given team's pieces of a type
+     */
+    public long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        ensureBitboards();
+        return pieceBitboards[Bitboards.pieceIndex(color, type)];
+    }
+
+    /**
+     * @return mask of the squares holding any of the given team's pieces
+     */
+    public long getPieces(ChessGame.TeamColor color) {
+        ensureBitboards();
+        return colorBitboards[color.ordinal()];
+    }
+
+    /**
+     * @return mask of every occupied square
+     */
+    public long getOccupied() {
+        ensureBitboards();
+        return occupied;
+    }
+
+    /**
+     * @return the square index of the team's king, or Bitboards.NO_SQUARE if
+     * it has none
+     */
+    public int getKingSquare(ChessGame.TeamColor color) {
+        ensureBitboards();
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * Finds the pieces of a team that attack a square, looking outward from the
+     * square with each piece's attack pattern
+     *
+     * @param square   the square index being attacked
+     * @param attacker the team doing the attacking
+     * @param occupied the blockers to use for sliding pieces, normally getOccupied()
+     * @return mask of the attacking pieces
+     */
+    public long attackersTo(int square, ChessGame.TeamColor attacker, long occupied) {
+        ensureBitboards();
+        long bishops = getPieces(attacker, ChessPiece.PieceType.BISHOP);
+        long rooks = getPieces(attacker, ChessPiece.PieceType.ROOK);
+        long queens = getPieces(attacker, ChessPiece.PieceType.QUEEN);
+        return (AttackTables.pawnAttacks(attacker.opponent(), square) & getPieces(attacker, ChessPiece.PieceType.PAWN))
+                | (AttackTables.knightAttacks(square) & getPieces(attacker, ChessPiece.PieceType.KNIGHT))
+                | (AttackTables.kingAttacks(square) & getPieces(attacker, ChessPiece.PieceType.KING))
+                | (AttackTables.bishopAttacks(square, occupied) & (bishops | queens))
+                | (AttackTables.rookAttacks(square, occupied) & (rooks | queens));
+    }
+
+    /**
+     * @return True if any piece of the attacking team attacks the square
+     */
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor attacker) {
+        return attackersTo(square, attacker, getOccupied()) != 0;
+    }
+
+    private static boolean isKing(ChessPiece piece) {
+        return piece != null && piece.getPieceType() == ChessPiece.PieceType.KING;
+    }
+
+    private void updateKingSquares() {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            kingSquares[color.ordinal()] = Bitboards.first(pieceBitboards[Bitboards.pieceIndex(color, ChessPiece.PieceType.KING)]);
+        }
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on the board, see {@link Zobrist}
+     */
+    public long getZobristKey() {
+        ensureBitboards();
+        return zobristKey;
+    }
+
+    /**
+     * @return the middlegame piece-square total, positive when white is ahead,
+     * see {@link PieceSquareTables}
+     */
+    public int getMiddlegameScore() {
+        ensureBitboards();
+        return middlegameScore;
+    }
+
+    /**
+     * @return the endgame piece-square total, positive when white is ahead
+     */
+    public int getEndgameScore() {
+        ensureBitboards();
+        return endgameScore;
+    }
+
+    /**
+     * @return the game phase, from PieceSquareTables.MAX_PHASE in the opening
+     * down to 0 with only kings and pawns left
+     */
+    public int getPhase() {
+        ensureBitboards();
+        return Math.min(phase, PieceSquareTables.MAX_PHASE);
+    }
+
+    /**
+     * Adds (sign 1) or removes (sign -1) a piece from the derived state
+     */
+    private void toggle(int square, ChessPiece piece, int sign) {
+        long bit = Bitboards.bit(square);
+        pieceBitboards[Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())] ^= bit;
+        colorBitboards[piece.getTeamColor().ordinal()] ^= bit;
+        occupied ^= bit;
+        zobristKey ^= Zobrist.piece(piece, square);
+        middlegameScore += sign * PieceSquareTables.middlegame(piece, square);
+        endgameScore += sign * PieceSquareTables.endgame(piece, square);
+        phase += sign * PieceSquareTables.phase(piece);
+    }
+
+    private void ensureBitboards() {
+        if (pieceBitboards != null) {
+            return;
+        }
+        pieceBitboards = new long[12];
+        colorBitboards = new long[2];
+        kingSquares = new int[2];
+        occupied = 0;
+        zobristKey = 0;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = squares[square >>> 3][square & 7];
+            if (piece != null) {
+                toggle(square, piece, 1);
+            }
+        }
+        updateKingSquares();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        if (getZobristKey() != that.getZobristKey()) {
+            return false;
+        }
+        return Arrays.equals(pieceBitboards, that.pieceBitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(getZobristKey());
     }
 
     /**
@@ -56,18 +255,17 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                squares[row][col] = null;
-            }
+        for (ChessPiece[] row : squares) {
+            Arrays.fill(row, null);
         }
+        pieceBitboards = null;
 
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(2, col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2, col), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
         }
 
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(7, col), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7, col), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
 
         ChessPiece.PieceType[] order = {
@@ -82,11 +280,11 @@ public class ChessBoard {
         };
 
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(1, col), new ChessPiece(ChessGame.TeamColor.WHITE, order[col - 1]));
+            addPiece(ChessPosition.of(1, col), ChessPiece.of(ChessGame.TeamColor.WHITE, order[col - 1]));
         }
 
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(8, col), new ChessPiece(ChessGame.TeamColor.BLACK, order[col - 1]));
+            addPiece(ChessPosition.of(8, col), ChessPiece.of(ChessGame.TeamColor.BLACK, order[col - 1]));
         }
     }
 }
@@ -1,6 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Objects;
 
@@ -12,13 +11,66 @@ import java.util.Objects;
  */
 public class ChessGame {
 
+    /**
+     * Plies without a capture or pawn move after which the game is drawn
+     */
+    public static final int FIFTY_MOVE_PLIES = 100;
+
+    /* positions remembered for repetition checks; a power of two above FIFTY_MOVE_PLIES */
+    private static final int KEY_HISTORY = 128;
+
     private ChessBoard board;
     private TeamColor teamTurn;
+    private int castlingRights;
+    /* 1-based column of a pawn that just moved two squares and can be taken en passant, 0 for none */
+    private int enPassantFile;
+    /* plies since the last capture or pawn move */
+    private int halfmoveClock;
+    /* starts at 1 and goes up after each black move, as in FEN */
+    private int fullmoveNumber = 1;
+    /* ring of the keys of positions before each move, indexed by positionCount */
+    private long[] positionKeys = new long[KEY_HISTORY];
+    private int positionCount;
+    private final transient UndoStack history = new UndoStack();
+    private transient GameStatus status;
+    private transient long statusKey;
+    private transient int statusCount;
 
     public ChessGame() {
         this.board = new ChessBoard();
         this.board.resetBoard();
         this.teamTurn = TeamColor.WHITE;
+        this.castlingRights = Castling.ALL;
+    }
+
+    /**
+     * Creates a game from a position, with castling rights worked out as in
+     * setBoard
+     *
+     * @param board    the board to play on
+     * @param teamTurn the team to move
+     */
+    public ChessGame(ChessBoard board, TeamColor teamTurn) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+        this.castlingRights = Castling.infer(board);
+    }
+
+    /**
+     * Creates a copy of another game's position. The copy starts with no
+     * moves to take back.
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        this.board = new ChessBoard(other.board);
+        this.teamTurn = other.teamTurn;
+        this.castlingRights = other.castlingRights;
+        this.enPassantFile = other.enPassantFile;
+        this.halfmoveClock = other.halfmoveClock;
+        this.fullmoveNumber = other.fullmoveNumber;
+        this.positionKeys = other.positionKeys.clone();
+        this.positionCount = other.positionCount;
     }
 
     /**
@@ -37,12 +89,176 @@ public class ChessGame {
         this.teamTurn = team;
     }
 
+    /**
+     * @return the castling rights still held, as Castling bits
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Sets which castling rights are still held, such as when loading a
+     * position whose history is not known
+     *
+     * @param rights the rights, as Castling bits
+     */
+    public void setCastlingRights(int rights) {
+        if ((rights & ~Castling.ALL) != 0) {
+            throw new IllegalArgumentException("Not castling rights: " + rights);
+        }
+        this.castlingRights = rights;
+    }
+
+    /**
+     * @return the 1-based column of a pawn the team to move can take en
+     * passant, or 0 if there is none
+     */
+    public int getEnPassantFile() {
+        return enPassantFile;
+    }
+
+    /**
+     * Sets the column of a pawn that has just moved two squares, so the team
+     * to move may take it en passant
+     *
+     * @param file the 1-based column, or 0 for none
+     */
+    public void setEnPassantFile(int file) {
+        if (file < 0 || file > 8) {
+            throw new IllegalArgumentException("Not a column: " + file);
+        }
+        this.enPassantFile = file;
+    }
+
+    /**
+     * @return how many plies have been played since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Sets the plies played since the last capture or pawn move, such as when
+     * loading a position whose history is not known
+     *
+     * @param plies the halfmove clock
+     */
+    public void setHalfmoveClock(int plies) {
+        if (plies < 0) {
+            throw new IllegalArgumentException("Halfmove clock cannot be negative: " + plies);
+        }
+        this.halfmoveClock = plies;
+        status = null;
+    }
+
+    /**
+     * @return the number of the full move being played, which starts at 1 and
+     * goes up after each move by black
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Sets the number of the full move being played, such as when loading a
+     * position partway through a game
+     *
+     * @param number the fullmove number, from 1
+     */
+    public void setFullmoveNumber(int number) {
+        if (number < 1) {
+            throw new IllegalArgumentException("Fullmove number must be positive: " + number);
+        }
+        this.fullmoveNumber = number;
+    }
+
+    /**
+     * @return the number of plies played since the start of the game, going by
+     * the fullmove number and the team to move
+     */
+    public int getPly() {
+        return 2 * (fullmoveNumber - 1) + (teamTurn == TeamColor.BLACK ? 1 : 0);
+    }
+
+    /**
+     * @return the position in Forsyth-Edwards Notation, see {@link Fen}
+     */
+    public String toFen() {
+        return Fen.format(this);
+    }
+
+    /**
+     * Creates a game from a position in Forsyth-Edwards Notation, see {@link Fen}
+     *
+     * @param fen the position
+     * @return a game at that position, with no moves to take back
+     * @throws IllegalArgumentException if the text is not a valid FEN position
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.parse(fen);
+    }
+
+    /**
+     * Gets the positions that can still repeat, for saving a game so that
+     * repetitions are still found after it is loaded
+     *
+     * @return the Zobrist keys of the positions since the last capture or
+     * pawn move, oldest first, not including the current position
+     */
+    public long[] getPositionHistory() {
+        int window = Math.min(halfmoveClock, Math.min(positionCount, KEY_HISTORY));
+        long[] keys = new long[window];
+        for (int i = 0; i < window; i++) {
+            keys[i] = positionKeys[(positionCount - window + i) & (KEY_HISTORY - 1)];
+        }
+        return keys;
+    }
+
+    /**
+     * Restores positions saved with getPositionHistory as the ones played
+     * before the current position. Set the halfmove clock as well, since only
+     * positions within it are checked for repetitions.
+     *
+     * @param keys the Zobrist keys, oldest first
+     */
+    public void setPositionHistory(long[] keys) {
+        int count = Math.min(keys.length, KEY_HISTORY);
+        for (int i = 0; i < count; i++) {
+            positionKeys[i] = keys[keys.length - count + i];
+        }
+        positionCount = count;
+        history.clear();
+        status = null;
+    }
+
+    /**
+     * @return the square the team to move would capture onto en passant, or NO_SQUARE
+     */
+    private int enPassantSquare() {
+        if (enPassantFile == 0) {
+            return Bitboards.NO_SQUARE;
+        }
+        return Bitboards.square(teamTurn == TeamColor.WHITE ? 6 : 3, enPassantFile);
+    }
+
+    private MoveGenerator generator(TeamColor color) {
+        return new MoveGenerator(board, color, castlingRights,
+                color == teamTurn ? enPassantSquare() : Bitboards.NO_SQUARE);
+    }
+
     /**
      * Enum identifying the 2 possible teams in a chess game
      */
     public enum TeamColor {
         WHITE,
-        BLACK
+        BLACK;
+
+        /**
+         * @return the other team
+         */
+        public TeamColor opponent() {
+            return this == WHITE ? BLACK : WHITE;
+        }
     }
 
     @Override
@@ -51,12 +267,29 @@ public class ChessGame {
             return false;
         }
         ChessGame chessGame = (ChessGame) o;
-        return Objects.equals(board, chessGame.board) && teamTurn == chessGame.teamTurn;
+        return teamTurn == chessGame.teamTurn && castlingRights == chessGame.castlingRights
+                && enPassantFile == chessGame.enPassantFile && Objects.equals(board, chessGame.board);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(board, teamTurn);
+        return Long.hashCode(getZobristKey());
+    }
+
+    /**
+     * Gets a 64-bit Zobrist key for the position: the board's incrementally
+     * maintained key combined with the team to move, castling rights and en
+     * passant file. Equal positions always
+     * share a key, so it can be used for caches and repetition checks.
+     *
+     * @return the position's Zobrist key
+     */
+    public long getZobristKey() {
+        long key = board.getZobristKey();
+        if (teamTurn == TeamColor.BLACK) {
+            key ^= Zobrist.blackToMove();
+        }
+        return key ^ Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantFile);
     }
 
     /**
@@ -68,28 +301,41 @@ public class ChessGame {
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
         ChessPiece piece = board.getPiece(startPosition);
-        Collection<ChessMove> moves = piece.pieceMoves(board, startPosition);
-        Collection<ChessMove> validMoves = new ArrayList<>();
-
         if (piece == null) {
-            return validMoves;
+            return null;
         }
+        return generator(piece.getTeamColor()).legalMoves(Bitboards.square(startPosition));
+    }
 
-        for (ChessMove move : moves) {
-            ChessPiece original = board.getPiece(move.getEndPosition());
-
-            board.addPiece(move.getEndPosition(), piece);
-            board.addPiece(startPosition, null);
-
-            if (!isInCheck(piece.getTeamColor())) {
-                validMoves.add(move);
-            }
+    /**
+     * Gets every legal move for the team whose turn it is
+     *
+     * @return the legal moves, empty if the team is checkmated or stalemated
+     */
+    public Collection<ChessMove> legalMoves() {
+        return generator(teamTurn).legalMoves();
+    }
 
-            board.addPiece(startPosition, piece);
-            board.addPiece(move.getEndPosition(), original);
-        }
+    /**
+     * Fills a buffer with the packed legal moves for the team whose turn it
+     * is. Reusing one buffer per ply lets search and perft generate moves
+     * without allocating.
+     *
+     * @param moves the buffer to fill; it is cleared first
+     */
+    public void generateMoves(MoveList moves) {
+        moves.clear();
+        generator(teamTurn).generate(moves);
+    }
 
-        return validMoves;
+    /**
+     * Fills a buffer with the packed legal captures for the team whose turn it is
+     *
+     * @param moves the buffer to fill; it is cleared first
+     */
+    public void generateCaptures(MoveList moves) {
+        moves.clear();
+        generator(teamTurn).generateCaptures(moves);
     }
 
     /**
@@ -104,20 +350,125 @@ public class ChessGame {
             throw new InvalidMoveException("No piece to move there");
         } else if (piece.getTeamColor() != teamTurn) {
             throw new InvalidMoveException("It is not that players turn");
-        } else if (!validMoves(move.getStartPosition()).contains(move)) {
+        }
+        MoveList moves = new MoveList();
+        generator(teamTurn).generate(Bitboards.square(move.getStartPosition()), moves);
+        int packed = Move.encode(move);
+        if (!moves.contains(packed)) {
             throw new InvalidMoveException("This move is not valid");
-        } else if (move.getPromotionPiece() == null) {
-            board.addPiece(move.getEndPosition(), piece);
-        } else if (move.getPromotionPiece() != null) {
-            board.addPiece(move.getEndPosition(), new ChessPiece(piece.getTeamColor(), move.getPromotionPiece()));
         }
-        board.addPiece(move.getStartPosition(), null);
+        playMove(packed);
+        updateStatus();
+    }
 
-        if (getTeamTurn() == TeamColor.WHITE) {
-            setTeamTurn(TeamColor.BLACK);
+    /**
+     * Takes back the most recent move played with makeMove or playMove, restoring any
+     * captured piece, the pawn before promotion, a castled rook, and the team,
+     * castling rights and en passant file from before the move
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (history.isEmpty()) {
+            throw new IllegalStateException("No move to undo");
+        }
+        UndoStack.Record undo = history.pop();
+        board.setPiece(undo.from, undo.moved);
+        if (undo.captureSquare == undo.to) {
+            board.setPiece(undo.to, undo.captured);
         } else {
-            setTeamTurn(TeamColor.WHITE);
+            board.setPiece(undo.to, null);
+            board.setPiece(undo.captureSquare, undo.captured);
+        }
+        if (Castling.isCastle(undo.moved, undo.from, undo.to)) {
+            board.setPiece(Castling.rookFrom(undo.to), board.getPiece(Castling.rookTo(undo.to)));
+            board.setPiece(Castling.rookTo(undo.to), null);
+        }
+        teamTurn = undo.teamTurn;
+        castlingRights = undo.castlingRights;
+        enPassantFile = undo.enPassantFile;
+        halfmoveClock = undo.halfmoveClock;
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber--;
         }
+        positionCount--;
+    }
+
+    /**
+     * @return how many moves can be taken back with unmakeMove
+     */
+    public int getUndoCount() {
+        return history.size();
+    }
+
+    /**
+     * Plays a packed move without validating it, recording how to take it
+     * back with unmakeMove. The move must be legal, such as one produced by
+     * generateMoves for this position.
+     *
+     * @param move the packed move to play
+     */
+    public void playMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = board.getPiece(from);
+
+        boolean pawn = piece.getPieceType() == ChessPiece.PieceType.PAWN;
+        int captureSquare = to;
+        if (pawn && to == enPassantSquare()) {
+            captureSquare = to + (teamTurn == TeamColor.WHITE ? -8 : 8);
+        }
+
+        UndoStack.Record undo = history.push();
+        undo.from = from;
+        undo.to = to;
+        undo.captureSquare = captureSquare;
+        undo.moved = piece;
+        undo.captured = board.getPiece(captureSquare);
+        undo.teamTurn = teamTurn;
+        undo.castlingRights = castlingRights;
+        undo.enPassantFile = enPassantFile;
+        undo.halfmoveClock = halfmoveClock;
+        positionKeys[positionCount++ & (KEY_HISTORY - 1)] = getZobristKey();
+        halfmoveClock = pawn || undo.captured != null ? 0 : halfmoveClock + 1;
+
+        if (captureSquare != to) {
+            board.setPiece(captureSquare, null);
+        }
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        if (promotion == null) {
+            board.setPiece(to, piece);
+        } else {
+            board.setPiece(to, ChessPiece.of(piece.getTeamColor(), promotion));
+        }
+        board.setPiece(from, null);
+        if (Castling.isCastle(piece, from, to)) {
+            board.setPiece(Castling.rookTo(to), board.getPiece(Castling.rookFrom(to)));
+            board.setPiece(Castling.rookFrom(to), null);
+        }
+
+        castlingRights = Castling.afterMove(castlingRights, from, to);
+        enPassantFile = pawn && Math.abs(to - from) == 16 && canBeTakenEnPassant(to) ? Bitboards.column(to) : 0;
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        teamTurn = teamTurn.opponent();
+    }
+
+    /**
+     * @return True if an enemy pawn stands beside a pawn that just moved two
+     * squares, so the en passant file is only set, and only changes the
+     * position's key, when the capture could actually be played
+     */
+    private boolean canBeTakenEnPassant(int square) {
+        long beside = 0;
+        if (Bitboards.column(square) > 1) {
+            beside |= Bitboards.bit(square - 1);
+        }
+        if (Bitboards.column(square) < 8) {
+            beside |= Bitboards.bit(square + 1);
+        }
+        return (board.getPieces(teamTurn.opponent(), ChessPiece.PieceType.PAWN) & beside) != 0;
     }
 
     /**
@@ -127,36 +478,8 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition king = null;
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
-                if (piece != null && piece.getTeamColor() == teamColor && piece.getPieceType() == ChessPiece.PieceType.KING) {
-                    king = pos;
-                    break;
-                }
-            }
-            if (king != null) {
-                break;
-            }
-        }
-
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-                if (piece == null || piece.getTeamColor() == teamColor) {
-                    continue;
-                }
-                for (ChessMove move : piece.pieceMoves(board, position)) {
-                    if (move.getEndPosition().equals(king)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        int king = board.getKingSquare(teamColor);
+        return king != Bitboards.NO_SQUARE && board.isSquareAttacked(king, teamColor.opponent());
     }
 
     /**
@@ -166,35 +489,11 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        if (!isInCheck(teamColor)) {
-            return false;
+        if (teamColor == teamTurn) {
+            return getStatus().type() == GameStatus.Type.CHECKMATE;
         }
-
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-                if (piece == null || piece.getTeamColor() != teamColor) {
-                    continue;
-                }
-                Collection<ChessMove> moves = piece.pieceMoves(board, position);
-                for (ChessMove move : moves) {
-                    ChessPiece targetPiece = board.getPiece(move.getEndPosition());
-                    board.addPiece(move.getEndPosition(), piece);
-                    board.addPiece(position, null);
-
-                    boolean inCheck = isInCheck(teamColor);
-
-                    board.addPiece(position, piece);
-                    board.addPiece(move.getEndPosition(), targetPiece);
-
-                    if (!inCheck) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
+        MoveGenerator generator = generator(teamColor);
+        return generator.isInCheck() && !generator.hasLegalMove();
     }
 
     /**
@@ -205,31 +504,114 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false;
+        if (teamColor == teamTurn) {
+            return getStatus().type() == GameStatus.Type.STALEMATE;
         }
+        MoveGenerator generator = generator(teamColor);
+        return !generator.isInCheck() && !generator.hasLegalMove();
+    }
+
+    /**
+     * Determines if the position has come up at least twice before with the
+     * same team to move, castling rights and en passant file, which draws the
+     * game
+     *
+     * @return True if the position has occurred three times
+     */
+    public boolean isThreefoldRepetition() {
+        return repetitions(2) >= 2;
+    }
+
+    /**
+     * Determines if the position has come up before, which a search treats
+     * as a draw since the same moves could repeat it again
+     *
+     * @return True if the position has occurred before
+     */
+    public boolean isRepetition() {
+        return repetitions(1) >= 1;
+    }
+
+    /**
+     * Determines if fifty moves by each team have passed without a capture
+     * or pawn move, which draws the game
+     *
+     * @return True if the fifty-move rule applies
+     */
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= FIFTY_MOVE_PLIES;
+    }
 
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    if (!validMoves(position).isEmpty()) {
-                        return false;
-                    }
-                }
+    /**
+     * Counts earlier occurrences of the position, up to a limit. Only
+     * positions since the last capture or pawn move can repeat, and only
+     * every other one has the same team to move, so the scan stops after
+     * halfmoveClock / 2 keys.
+     */
+    private int repetitions(int limit) {
+        int window = Math.min(halfmoveClock, Math.min(positionCount, KEY_HISTORY));
+        if (window < 4) {
+            return 0;
+        }
+        long key = getZobristKey();
+        int count = 0;
+        for (int back = 4; back <= window && count < limit; back += 2) {
+            if (positionKeys[(positionCount - back) & (KEY_HISTORY - 1)] == key) {
+                count++;
             }
         }
-        return true;
+        return count;
+    }
+
+    /**
+     * Gets whether the team to move is in check, checkmate or stalemate, or
+     * the game is drawn by repetition or the fifty-move rule. The status is
+     * worked out once per position, when a move is made or on the first call
+     * after any other change, and reused until the position changes.
+     *
+     * @return the status for the team whose turn it is
+     */
+    public GameStatus getStatus() {
+        if (status == null || statusKey != getZobristKey() || statusCount != positionCount) {
+            updateStatus();
+        }
+        return status;
+    }
+
+    private void updateStatus() {
+        MoveGenerator generator = generator(teamTurn);
+        boolean canMove = generator.hasLegalMove();
+        GameStatus.Type type;
+        if (generator.isInCheck()) {
+            type = canMove ? GameStatus.Type.CHECK : GameStatus.Type.CHECKMATE;
+        } else {
+            type = canMove ? GameStatus.Type.ONGOING : GameStatus.Type.STALEMATE;
+        }
+        if (canMove && isThreefoldRepetition()) {
+            type = GameStatus.Type.REPETITION;
+        } else if (canMove && isFiftyMoveRule()) {
+            type = GameStatus.Type.FIFTY_MOVES;
+        }
+        status = new GameStatus(type, teamTurn);
+        statusKey = getZobristKey();
+        statusCount = positionCount;
     }
 
     /**
-     * Sets this game's chessboard with a given board
+     * Sets this game's chessboard with a given board. Kings and rooks on their
+     * starting squares are given their castling rights, no pawn can be taken
+     * en passant, and the move history used for draws starts over.
      *
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        this.castlingRights = Castling.infer(board);
+        this.enPassantFile = 0;
+        this.halfmoveClock = 0;
+        this.fullmoveNumber = 1;
+        this.positionCount = 0;
+        history.clear();
     }
 
     /**
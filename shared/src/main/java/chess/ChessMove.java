@@ -57,4 +57,23 @@ public class ChessMove {
     public int hashCode() {
         return Objects.hash(start, end, promotionPiece);
     }
+
+    /**
+     * @return the move in coordinate notation, such as e2e4 or a7a8q
+     */
+    @Override
+    public String toString() {
+        String move = start.toString() + end;
+        if (promotionPiece == null) {
+            return move;
+        }
+        return switch (promotionPiece) {
+            case QUEEN -> move + "q";
+            case ROOK -> move + "r";
+            case BISHOP -> move + "b";
+            case KNIGHT -> move + "n";
+            case KING -> move + "k";
+            case PAWN -> move + "p";
+        };
+    }
 }
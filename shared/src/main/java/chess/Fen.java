@@ -0,0 +1,297 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation, such as the
+ * starting position {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}.
+ * <p>
+ * The six fields are the pieces from rank 8 down to rank 1 (white in upper
+ * case, runs of empty squares as digits), the team to move, the castling
+ * rights, the en passant target square, the halfmove clock and the fullmove
+ * number. Both directions work in a single pass over the text without
+ * splitting it into pieces.
+ */
+public final class Fen {
+
+    /**
+     * The standard starting position
+     */
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /* piece letters in PieceType order */
+    private static final String LETTERS = "kqbnrp";
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final String CASTLING = "KQkq";
+
+    private Fen() {
+    }
+
+    /**
+     * @return the game's position as a FEN string
+     */
+    public static String format(ChessGame game) {
+        StringBuilder out = new StringBuilder(90);
+        appendPlacement(out, game.getBoard());
+        out.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+
+        int rights = game.getCastlingRights();
+        if (rights == Castling.NONE) {
+            out.append('-');
+        }
+        for (int i = 0; i < 4; i++) {
+            if ((rights & (1 << i)) != 0) {
+                out.append(CASTLING.charAt(i));
+            }
+        }
+
+        out.append(' ');
+        int file = game.getEnPassantFile();
+        if (file == 0) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + file - 1)).append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? '6' : '3');
+        }
+        out.append(' ').append(game.getHalfmoveClock()).append(' ').append(game.getFullmoveNumber());
+        return out.toString();
+    }
+
+    /**
+     * @return the board's piece placement, the first field of a FEN string
+     */
+    public static String placement(ChessBoard board) {
+        StringBuilder out = new StringBuilder(71);
+        appendPlacement(out, board);
+        return out.toString();
+    }
+
+    /**
+     * Reads a FEN position. The halfmove clock and fullmove number may be left
+     * off, in which case they are 0 and 1. Castling rights are kept only
+     * where the king and rook are still on their starting squares, and the en
+     * passant square only when a pawn could capture onto it, so a position
+     * read from FEN equals the same position reached by playing moves.
+     *
+     * @return a game at the position, with no moves to take back
+     * @throws IllegalArgumentException if the text is not a valid FEN position
+     */
+    public static ChessGame parse(String fen) {
+        Reader in = new Reader(fen);
+        ChessBoard board = new ChessBoard();
+        in.index = readPlacement(fen, in.skipSpaces(), board);
+        in.endField();
+
+        ChessGame.TeamColor turn = switch (in.next()) {
+            case 'w' -> ChessGame.TeamColor.WHITE;
+            case 'b' -> ChessGame.TeamColor.BLACK;
+            default -> throw in.error();
+        };
+        in.endField();
+
+        int rights = Castling.NONE;
+        if (in.peek() == '-') {
+            in.next();
+        } else {
+            while (in.index < fen.length() && fen.charAt(in.index) != ' ') {
+                int right = CASTLING.indexOf(in.next());
+                if (right < 0) {
+                    throw in.error();
+                }
+                rights |= 1 << right;
+            }
+        }
+        in.endField();
+
+        int file = 0;
+        if (in.peek() == '-') {
+            in.next();
+        } else {
+            file = in.next() - 'a' + 1;
+            char rank = in.next();
+            if (file < 1 || file > 8 || rank != (turn == ChessGame.TeamColor.WHITE ? '6' : '3')) {
+                throw in.error();
+            }
+        }
+
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        if (in.hasField()) {
+            halfmoveClock = in.number();
+            if (in.hasField()) {
+                fullmoveNumber = Math.max(1, in.number());
+            }
+        }
+        if (in.skipSpaces() != fen.length()) {
+            throw in.error();
+        }
+
+        ChessGame game = new ChessGame(board, turn);
+        game.setCastlingRights(rights & Castling.infer(board));
+        if (file != 0 && canCaptureEnPassant(board, turn, file)) {
+            game.setEnPassantFile(file);
+        }
+        game.setHalfmoveClock(halfmoveClock);
+        game.setFullmoveNumber(fullmoveNumber);
+        return game;
+    }
+
+    /**
+     * Reads a piece placement, the first field of a FEN string
+     *
+     * @throws IllegalArgumentException if the text is not a valid placement
+     */
+    public static ChessBoard parsePlacement(String placement) {
+        ChessBoard board = new ChessBoard();
+        if (readPlacement(placement, 0, board) != placement.length()) {
+            throw new IllegalArgumentException("Not a FEN piece placement: " + placement);
+        }
+        return board;
+    }
+
+    private static void appendPlacement(StringBuilder out, ChessBoard board) {
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board.getPiece(row * 8 + col);
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = LETTERS.charAt(piece.getPieceType().ordinal());
+                out.append(piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                out.append('/');
+            }
+        }
+    }
+
+    /**
+     * Places the pieces of a placement starting at an index of the text
+     *
+     * @return the index just past the placement
+     */
+    private static int readPlacement(String text, int index, ChessBoard board) {
+        int row = 7;
+        int col = 0;
+        for (; index < text.length() && text.charAt(index) != ' '; index++) {
+            char c = text.charAt(index);
+            if (c == '/') {
+                if (col != 8 || row == 0) {
+                    throw new IllegalArgumentException("Not a FEN position: " + text);
+                }
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                int type = LETTERS.indexOf(Character.toLowerCase(c));
+                if (type < 0 || col > 7) {
+                    throw new IllegalArgumentException("Not a FEN position: " + text);
+                }
+                ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                board.setPiece(row * 8 + col++, ChessPiece.of(color, TYPES[type]));
+            }
+            if (col > 8) {
+                throw new IllegalArgumentException("Not a FEN position: " + text);
+            }
+        }
+        if (row != 0 || col != 8) {
+            throw new IllegalArgumentException("Not a FEN position: " + text);
+        }
+        return index;
+    }
+
+    /**
+     * @return True if a pawn of the team to move stands beside the enemy
+     * pawn that just moved two squares on a file
+     */
+    private static boolean canCaptureEnPassant(ChessBoard board, ChessGame.TeamColor turn, int file) {
+        int pushed = Bitboards.square(turn == ChessGame.TeamColor.WHITE ? 5 : 4, file);
+        ChessPiece pawn = board.getPiece(pushed);
+        if (pawn == null || pawn.getPieceType() != ChessPiece.PieceType.PAWN || pawn.getTeamColor() == turn) {
+            return false;
+        }
+        long beside = 0;
+        if (file > 1) {
+            beside |= Bitboards.bit(pushed - 1);
+        }
+        if (file < 8) {
+            beside |= Bitboards.bit(pushed + 1);
+        }
+        return (board.getPieces(turn, ChessPiece.PieceType.PAWN) & beside) != 0;
+    }
+
+    /**
+     * A cursor over the fields after the placement
+     */
+    private static final class Reader {
+        private final String text;
+        private int index;
+
+        Reader(String text) {
+            this.text = text;
+        }
+
+        int skipSpaces() {
+            while (index < text.length() && text.charAt(index) == ' ') {
+                index++;
+            }
+            return index;
+        }
+
+        /**
+         * @return True if another field follows
+         */
+        boolean hasField() {
+            return skipSpaces() < text.length();
+        }
+
+        /**
+         * Moves on to the next field, which must be there
+         */
+        void endField() {
+            if (index >= text.length() || text.charAt(index) != ' ' || !hasField()) {
+                throw error();
+            }
+        }
+
+        char peek() {
+            if (index >= text.length()) {
+                throw error();
+            }
+            return text.charAt(index);
+        }
+
+        char next() {
+            char c = peek();
+            index++;
+            return c;
+        }
+
+        int number() {
+            int start = index;
+            int value = 0;
+            while (index < text.length() && text.charAt(index) != ' ') {
+                char c = text.charAt(index++);
+                if (c < '0' || c > '9' || value > 100_000) {
+                    throw error();
+                }
+                value = value * 10 + c - '0';
+            }
+            if (index == start) {
+                throw error();
+            }
+            return value;
+        }
+
+        IllegalArgumentException error() {
+            return new IllegalArgumentException("Not a FEN position: " + text);
+        }
+    }
+}
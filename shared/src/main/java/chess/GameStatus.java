@@ -0,0 +1,46 @@
+package chess;
+
+/**
+ * The state of a game for the team whose turn it is
+ *
+ * @param type what the position means for that team
+ * @param team the team to move, which is the team in check, checkmate or stalemate
+ */
+public record GameStatus(Type type, ChessGame.TeamColor team) {
+
+    public enum Type {
+        ONGOING,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        /**
+         * Drawn because the position occurred three times
+         */
+        REPETITION,
+        /**
+         * Drawn because fifty moves passed without a capture or pawn move
+         */
+        FIFTY_MOVES
+    }
+
+    /**
+     * @return True if the game cannot continue
+     */
+    public boolean isGameOver() {
+        return type == Type.CHECKMATE || type == Type.STALEMATE || isDraw();
+    }
+
+    /**
+     * @return True if the game is drawn by repetition or the fifty-move rule
+     */
+    public boolean isDraw() {
+        return type == Type.REPETITION || type == Type.FIFTY_MOVES;
+    }
+
+    /**
+     * @return True if the team to move is in check, including checkmate
+     */
+    public boolean isCheck() {
+        return type == Type.CHECK || type == Type.CHECKMATE;
+    }
+}
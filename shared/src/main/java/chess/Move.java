@@ -0,0 +1,102 @@
+package chess;
+
+/**
+ * Moves packed into a single int, so the engine can generate, store and play
+ * them without allocating.
+ * <p>
+ * Bits 0-5 hold the start square, bits 6-11 the end square, bits 12-14 the
+ * promotion piece (0 for none, otherwise the piece type's ordinal plus one),
+ * and the bits from 15 up hold flags describing the move.
+ */
+public final class Move {
+
+    /**
+     * No move; never produced by the generator since a move cannot start and end on a1
+     */
+    public static final int NONE = 0;
+
+    /**
+     * Flag set when the move takes an enemy piece
+     */
+    public static final int CAPTURE = 1;
+
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int FLAGS_SHIFT = 15;
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+    }
+
+    /**
+     * @return a move between two squares with no promotion and no flags
+     */
+    public static int of(int from, int to) {
+        return from | (to << TO_SHIFT);
+    }
+
+    /**
+     * @return a move between two squares, promoting to the given type if it is not null
+     */
+    public static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int code = promotion == null ? 0 : promotion.ordinal() + 1;
+        return from | (to << TO_SHIFT) | (code << PROMOTION_SHIFT) | (flags << FLAGS_SHIFT);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & 0x3F;
+    }
+
+    /**
+     * @return the piece type a pawn promotes to, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int code = (move >>> PROMOTION_SHIFT) & 0x7;
+        return code == 0 ? null : PIECE_TYPES[code - 1];
+    }
+
+    public static boolean isPromotion(int move) {
+        return ((move >>> PROMOTION_SHIFT) & 0x7) != 0;
+    }
+
+    public static int flags(int move) {
+        return move >>> FLAGS_SHIFT;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    /**
+     * @return the move without its flags, so moves from different sources can be compared
+     */
+    public static int withoutFlags(int move) {
+        return move & ((1 << FLAGS_SHIFT) - 1);
+    }
+
+    /**
+     * @return the packed form of a move object, without flags
+     */
+    public static int encode(ChessMove move) {
+        return of(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece(), 0);
+    }
+
+    /**
+     * @return a move object for a packed move
+     */
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(Bitboards.position(from(move)), Bitboards.position(to(move)), promotion(move));
+    }
+
+    /**
+     * @return the move in coordinate notation, such as e2e4 or a7a8q
+     */
+    public static String toString(int move) {
+        return toChessMove(move).toString();
+    }
+}
@@ -0,0 +1,320 @@
+package chess;
+
+import java.util.Collection;
+
+/**
+ * Generates strictly legal moves for one team on a board.
+ * <p>
+ * Checkers and pinned pieces are computed once when the generator is created.
+ * In check, non-king moves are limited to capturing the checker or blocking
+ * its ray (and only the king may move in double check). Pinned pieces may only
+ * move along the line between their king and the pinning piece. King moves are
+ * tested against the board with the king lifted off, so it cannot step back
+ * along a checking ray.
+ * <p>
+ * Castling and en passant come from the game state passed in rather than the
+ * move history: castling needs the right, empty squares between king and rook,
+ * and no attacks on the king's path; an en passant capture is checked by
+ * looking for attacks on the king with both pawns moved, which also catches
+ * the rare pin along the pawns' row.
+ */
+public class MoveGenerator {
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT
+    };
+
+    private final ChessBoard board;
+    private final ChessGame.TeamColor color;
+    private final long ownPieces;
+    private final long enemyPieces;
+    private final long occupied;
+    private final int king;
+    private final long checkers;
+    private final long checkMask;
+    private final long pinned;
+    private final int castlingRights;
+    private final int enPassantSquare;
+
+    /**
+     * Creates a generator for a board with no castling rights or en passant capture
+     */
+    public MoveGenerator(ChessBoard board, ChessGame.TeamColor color) {
+        this(board, color, Castling.NONE, Bitboards.NO_SQUARE);
+    }
+
+    /**
+     * @param castlingRights  the game's castling rights, as Castling bits
+     * @param enPassantSquare the square a pawn of this team may capture onto en passant, or NO_SQUARE
+     */
+    public MoveGenerator(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare) {
+        this.board = board;
+        this.color = color;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.ownPieces = board.getPieces(color);
+        this.enemyPieces = board.getPieces(color.opponent());
+        this.occupied = board.getOccupied();
+        this.king = board.getKingSquare(color);
+
+        if (king == Bitboards.NO_SQUARE) {
+            checkers = 0;
+            checkMask = -1L;
+            pinned = 0;
+            return;
+        }
+
+        checkers = board.attackersTo(king, color.opponent(), occupied);
+        if (checkers == 0) {
+            checkMask = -1L;
+        } else if (Long.bitCount(checkers) == 1) {
+            checkMask = checkers | AttackTables.between(king, Long.numberOfTrailingZeros(checkers));
+        } else {
+            checkMask = 0;
+        }
+        pinned = findPinned();
+    }
+
+    /**
+     * @return True if the team's king is attacked
+     */
+    public boolean isInCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * Gets the legal moves for the team's piece on a square
+     *
+     * @param square the square index of one of this team's pieces
+     * @return the legal moves, empty if the square does not hold one of the team's pieces
+     */
+    public Collection<ChessMove> legalMoves(int square) {
+        MoveList moves = new MoveList();
+        generate(square, moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * @return the legal moves for every one of the team's pieces
+     */
+    public Collection<ChessMove> legalMoves() {
+        MoveList moves = new MoveList();
+        generate(moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Appends the packed legal moves for every one of the team's pieces
+     *
+     * @param moves the buffer to add to
+     */
+    public void generate(MoveList moves) {
+        generate(moves, false);
+    }
+
+    /**
+     * Appends the packed legal moves that capture an enemy piece, for
+     * searches that only look at captures
+     *
+     * @param moves the buffer to add to
+     */
+    public void generateCaptures(MoveList moves) {
+        generate(moves, true);
+    }
+
+    private void generate(MoveList moves, boolean capturesOnly) {
+        long pieces = ownPieces;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            generate(square, moves, capturesOnly);
+        }
+    }
+
+    /**
+     * Appends the packed legal moves for the team's piece on a square
+     *
+     * @param square the square index of one of this team's pieces
+     * @param moves  the buffer to add to
+     */
+    public void generate(int square, MoveList moves) {
+        generate(square, moves, false);
+    }
+
+    private void generate(int square, MoveList moves, boolean capturesOnly) {
+        long targets = legalTargets(square);
+        if (targets == 0) {
+            return;
+        }
+        boolean pawn = board.getPiece(square).getPieceType() == ChessPiece.PieceType.PAWN;
+        long captures = pawn ? enemyPieces | enPassantBit() : enemyPieces;
+        if (capturesOnly) {
+            targets &= captures;
+        }
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int flags = (captures & Bitboards.bit(target)) != 0 ? Move.CAPTURE : 0;
+            if (pawn && Bitboards.row(target) == promotionRow()) {
+                for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                    moves.add(Move.of(square, target, promotion, flags));
+                }
+            } else {
+                moves.add(Move.of(square, target, null, flags));
+            }
+        }
+    }
+
+    /**
+     * @return True if the team has at least one legal move
+     */
+    public boolean hasLegalMove() {
+        long pieces = ownPieces;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            if (legalTargets(square) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return mask of the squares the piece on a square can legally move to
+     */
+    public long legalTargets(int square) {
+        ChessPiece piece = board.getPiece(square);
+        if (piece == null || piece.getTeamColor() != color) {
+            return 0;
+        }
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            return kingTargets(square) | castlingTargets(square);
+        }
+
+        long targets = switch (piece.getPieceType()) {
+            case QUEEN -> AttackTables.queenAttacks(square, occupied);
+            case BISHOP -> AttackTables.bishopAttacks(square, occupied);
+            case KNIGHT -> AttackTables.knightAttacks(square);
+            case ROOK -> AttackTables.rookAttacks(square, occupied);
+            case PAWN -> pawnTargets(square);
+            case KING -> 0;
+        };
+        targets &= ~ownPieces & checkMask;
+        if ((pinned & Bitboards.bit(square)) != 0) {
+            targets &= AttackTables.line(king, square);
+        }
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            targets |= enPassantTarget(square);
+        }
+        return targets;
+    }
+
+    private long kingTargets(int square) {
+        long targets = AttackTables.kingAttacks(square) & ~ownPieces;
+        long withoutKing = occupied & ~Bitboards.bit(square);
+        long legal = 0;
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (board.attackersTo(target, color.opponent(), withoutKing) == 0) {
+                legal |= Bitboards.bit(target);
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * @return the king's castling targets, two squares toward each rook it may castle with
+     */
+    private long castlingTargets(int square) {
+        if (castlingRights == Castling.NONE || checkers != 0 || square != Castling.kingSquare(color)) {
+            return 0;
+        }
+        long targets = 0;
+        if ((castlingRights & Castling.kingside(color)) != 0 && canCastle(square, square + 3, square + 1)) {
+            targets |= Bitboards.bit(square + 2);
+        }
+        if ((castlingRights & Castling.queenside(color)) != 0 && canCastle(square, square - 4, square - 1)) {
+            targets |= Bitboards.bit(square - 2);
+        }
+        return targets;
+    }
+
+    /**
+     * @param step the square next to the king on the way to the rook
+     */
+    private boolean canCastle(int square, int rook, int step) {
+        int target = 2 * step - square;
+        return (board.getPieces(color, ChessPiece.PieceType.ROOK) & Bitboards.bit(rook)) != 0
+                && (AttackTables.between(square, rook) & occupied) == 0
+                && board.attackersTo(step, color.opponent(), occupied) == 0
+                && board.attackersTo(target, color.opponent(), occupied) == 0;
+    }
+
+    private long enPassantBit() {
+        return enPassantSquare == Bitboards.NO_SQUARE ? 0 : Bitboards.bit(enPassantSquare);
+    }
+
+    /**
+     * @return the en passant square if the pawn on a square can legally capture onto it
+     */
+    private long enPassantTarget(int square) {
+        long target = enPassantBit();
+        if ((AttackTables.pawnAttacks(color, square) & target) == 0) {
+            return 0;
+        }
+        if (king == Bitboards.NO_SQUARE) {
+            return target;
+        }
+        int captured = enPassantSquare + (color == ChessGame.TeamColor.WHITE ? -8 : 8);
+        long after = (occupied & ~Bitboards.bit(square) & ~Bitboards.bit(captured)) | target;
+        long attackers = board.attackersTo(king, color.opponent(), after) & ~Bitboards.bit(captured);
+        return attackers == 0 ? target : 0;
+    }
+
+    private long pawnTargets(int square) {
+        int direction = color == ChessGame.TeamColor.WHITE ? 8 : -8;
+        int startRow = color == ChessGame.TeamColor.WHITE ? 2 : 7;
+        long targets = AttackTables.pawnAttacks(color, square) & enemyPieces;
+
+        int oneStep = square + direction;
+        if (oneStep >= 0 && oneStep < 64 && (occupied & Bitboards.bit(oneStep)) == 0) {
+            targets |= Bitboards.bit(oneStep);
+            int twoStep = oneStep + direction;
+            if (Bitboards.row(square) == startRow && (occupied & Bitboards.bit(twoStep)) == 0) {
+                targets |= Bitboards.bit(twoStep);
+            }
+        }
+        return targets;
+    }
+
+    private int promotionRow() {
+        return color == ChessGame.TeamColor.WHITE ? 8 : 1;
+    }
+
+    /**
+     * Finds this team's pieces that are the only blocker between their king
+     * and an enemy slider
+     */
+    private long findPinned() {
+        ChessGame.TeamColor enemy = color.opponent();
+        long queens = board.getPieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (AttackTables.rookAttacks(king, 0) & (board.getPieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (AttackTables.bishopAttacks(king, 0) & (board.getPieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+
+        long result = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = AttackTables.between(king, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & ownPieces) != 0) {
+                result |= blockers;
+            }
+        }
+        return result;
+    }
+}
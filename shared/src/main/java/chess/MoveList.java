@@ -0,0 +1,75 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * A reusable buffer of packed moves (see {@link Move}).
+ * <p>
+ * No chess position has more than 218 legal moves, so a list never needs to
+ * grow. Callers keep one list per ply and clear it before each use.
+ */
+public final class MoveList {
+
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private int size;
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return True if the list holds the move, ignoring flags
+     */
+    public boolean contains(int move) {
+        int target = Move.withoutFlags(move);
+        for (int i = 0; i < size; i++) {
+            if (Move.withoutFlags(moves[i]) == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Swaps two entries, for move ordering
+     */
+    public void swap(int a, int b) {
+        int move = moves[a];
+        moves[a] = moves[b];
+        moves[b] = move;
+    }
+
+    /**
+     * @return the moves as move objects, for callers outside the engine
+     */
+    public Collection<ChessMove> toChessMoves() {
+        Collection<ChessMove> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(Move.toChessMove(moves[i]));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,185 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Perft (performance test) for the rules engine: counts every leaf of the
+ * legal move tree to a fixed depth. Comparing the counts against published
+ * numbers for standard positions checks move generation, and the time taken
+ * measures its speed.
+ * <p>
+ * Run with no arguments to check the standard positions, or with
+ * {@code divide <depth> [fen]} to print the count under each root move.
+ * Add {@code --threads <n>} to split root moves across worker threads.
+ */
+public final class Perft {
+
+    /**
+     * A position with its known node counts, where {@code nodes[i]} is the
+     * count at depth {@code i + 1}
+     */
+    public record Position(String name, String fen, long... nodes) {
+    }
+
+    public static final List<Position> STANDARD_POSITIONS = List.of(
+            new Position("start", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    20, 400, 8902, 197281, 4865609),
+            new Position("position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2812, 43238, 674624),
+            new Position("position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2079, 89890, 3894594),
+            new Position("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2039, 97862, 4085603),
+            new Position("position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9467, 422333),
+            new Position("position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1486, 62379, 2103487)
+    );
+
+    private Perft() {
+    }
+
+    /**
+     * @return the number of leaf nodes of the legal move tree below the game's position
+     */
+    public static long perft(ChessGame game, int depth) {
+        MoveList[] lists = new MoveList[Math.max(depth, 1)];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+        return perft(game, depth, lists);
+    }
+
+    /**
+     * Searches with one reusable move list per remaining ply, so the tree walk does not allocate
+     */
+    private static long perft(ChessGame game, int depth, MoveList[] lists) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = lists[depth - 1];
+        game.generateMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.playMove(moves.get(i));
+            nodes += perft(game, depth - 1, lists);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts leaf nodes, splitting the root moves across worker threads. Each
+     * worker searches its own copy of the game.
+     */
+    public static long perft(ChessGame game, int depth, int threads) throws InterruptedException {
+        long nodes = 0;
+        for (long count : divide(game, depth, threads).values()) {
+            nodes += count;
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the leaf count below each legal root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth, int threads) throws InterruptedException {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1");
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            MoveList moves = new MoveList();
+            game.generateMoves(moves);
+            Map<ChessMove, Future<Long>> futures = new LinkedHashMap<>();
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                ChessGame copy = new ChessGame(game);
+                futures.put(Move.toChessMove(move), pool.submit(() -> {
+                    copy.playMove(move);
+                    return perft(copy, depth - 1);
+                }));
+            }
+
+            Map<ChessMove, Long> counts = new LinkedHashMap<>();
+            for (var entry : futures.entrySet()) {
+                counts.put(entry.getKey(), entry.getValue().get());
+            }
+            return counts;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Perft worker failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = 1;
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                rest.add(args[i]);
+            }
+        }
+
+        if (!rest.isEmpty() && rest.get(0).equals("divide")) {
+            int depth = Integer.parseInt(rest.get(1));
+            String fen = rest.size() > 2 ? String.join(" ", rest.subList(2, rest.size())) : STANDARD_POSITIONS.get(0).fen();
+            runDivide(ChessGame.fromFen(fen), depth, threads);
+        } else {
+            runSuite(threads);
+        }
+    }
+
+    private static void runDivide(ChessGame game, int depth, int threads) throws InterruptedException {
+        long start = System.nanoTime();
+        Map<ChessMove, Long> counts = divide(game, depth, threads);
+        long elapsed = System.nanoTime() - start;
+
+        long total = 0;
+        for (var entry : counts.entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            total += entry.getValue();
+        }
+        System.out.println();
+        System.out.println("Nodes: " + total);
+        System.out.println(rate(total, elapsed));
+    }
+
+    private static void runSuite(int threads) throws InterruptedException {
+        boolean allPassed = true;
+        for (Position position : STANDARD_POSITIONS) {
+            for (int depth = 1; depth <= position.nodes().length; depth++) {
+                long expected = position.nodes()[depth - 1];
+                long start = System.nanoTime();
+                long nodes = perft(ChessGame.fromFen(position.fen()), depth, threads);
+                long elapsed = System.nanoTime() - start;
+
+                boolean passed = nodes == expected;
+                allPassed &= passed;
+                System.out.printf("%-12s depth %d: %12d %s  %s%n", position.name(), depth, nodes,
+                        passed ? "ok" : "FAILED (expected " + expected + ")", rate(nodes, elapsed));
+            }
+        }
+        if (!allPassed) {
+            System.exit(1);
+        }
+    }
+
+    private static String rate(long nodes, long nanos) {
+        double seconds = nanos / 1e9;
+        return String.format("%.3fs, %.0f nodes/s", seconds, nodes / Math.max(seconds, 1e-9));
+    }
+}
@@ -4,8 +4,8 @@ import java.util.Collection;
 
 public class PieceKnight implements PieceMovesCalculator {
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        int[][] directions = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {-1, 2}, {1, -2}, {-1, -2}};
         ChessPiece myPiece = board.getPiece(myPosition);
-        return PieceMoves.moveOne(board, myPosition, directions, myPiece);
+        int square = Bitboards.square(myPosition);
+        return PieceMoves.moveToTargets(board, myPosition, AttackTables.knightAttacks(square), myPiece);
     }
 }
@@ -5,68 +5,23 @@ import java.util.Collection;
 
 public class PieceMoves {
 
-    public static Collection<ChessMove> moveOne(
+    /**
+     * Builds moves from a precomputed attack mask, skipping squares held by
+     * the moving piece's own team
+     */
+    public static Collection<ChessMove> moveToTargets(
             ChessBoard board,
             ChessPosition myPosition,
-            int[][] directions,
+            long attacks,
             ChessPiece myPiece
     ) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        for (int[] d : directions) {
-            int row = myPosition.getRow();
-            int col = myPosition.getColumn();
-
-            row += d[0];
-            col += d[1];
-
-            if (row < 1 || row > 8 || col < 1 || col > 8) {
-                continue;
-            }
-
-            ChessPosition newPosition = new ChessPosition(row, col);
-            ChessPiece piece = board.getPiece(newPosition);
-
-            if (piece == null || piece.getTeamColor() != myPiece.getTeamColor()) {
-                moves.add(new ChessMove(myPosition, newPosition, null));
-            }
-        }
-        return moves;
-    }
-
-    public static Collection<ChessMove> moveSideways(
-            ChessBoard board,
-            ChessPosition myPosition,
-            int[][] directions,
-            ChessPiece myPiece
-    ) {
-        Collection<ChessMove> moves = new ArrayList<>();
-
-        for (int[] d : directions) {
-            int row = myPosition.getRow();
-            int col = myPosition.getColumn();
-
-            while (true) {
-                row += d[0];
-                col += d[1];
-
-                if (row < 1 || row > 8 || col < 1 || col > 8) {
-                    break;
-                }
-
-                ChessPosition newPosition = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(newPosition);
-
-                if (piece == null) {
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                } else {
-                    if (piece.getTeamColor() != myPiece.getTeamColor()) {
-                        moves.add(new ChessMove(myPosition, newPosition, null));
-                    }
-                    break;
-                }
-            }
+        long targets = attacks & ~board.getPieces(myPiece.getTeamColor());
+        Collection<ChessMove> moves = new ArrayList<>(Long.bitCount(targets));
+        while (targets != 0) {
+            int square = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(new ChessMove(myPosition, Bitboards.position(square), null));
         }
-
         return moves;
     }
-}
\ No newline at end of file
+}
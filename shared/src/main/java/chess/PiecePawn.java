@@ -23,7 +23,7 @@ public class PiecePawn implements PieceMovesCalculator {
             return moves;
         }
 
-        ChessPosition moveOne = new ChessPosition(newRow, col);
+        ChessPosition moveOne = ChessPosition.of(newRow, col);
         if (board.getPiece(moveOne) == null) {
             if (moveOne.getRow() == promotionRow) {
                 moves.add(new ChessMove(myPosition, moveOne, ChessPiece.PieceType.QUEEN));
@@ -35,7 +35,7 @@ public class PiecePawn implements PieceMovesCalculator {
             }
 
             if (row == startRow) {
-                ChessPosition moveTwo = new ChessPosition(row + direction * 2, col);
+                ChessPosition moveTwo = ChessPosition.of(row + direction * 2, col);
                 if (board.getPiece(moveTwo) == null) {
                     moves.add(new ChessMove(myPosition, moveTwo, null));
                 }
@@ -48,7 +48,7 @@ public class PiecePawn implements PieceMovesCalculator {
             if (newCol < 1 || newCol > 8) {
                 continue;
             }
-            ChessPosition diag = new ChessPosition(newRow, newCol);
+            ChessPosition diag = ChessPosition.of(newRow, newCol);
             ChessPiece piece = board.getPiece(diag);
 
             if (piece == null || piece.getTeamColor() == myPiece.getTeamColor()) {
@@ -4,8 +4,8 @@ import java.util.Collection;
 
 public class PieceQueen implements PieceMovesCalculator {
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        int[][] directions = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}, {1, 0}, {-1, 0}, {0, 1}, {0, -1}};
         ChessPiece myPiece = board.getPiece(myPosition);
-        return PieceMoves.moveSideways(board, myPosition, directions, myPiece);
+        int square = Bitboards.square(myPosition);
+        return PieceMoves.moveToTargets(board, myPosition, AttackTables.queenAttacks(square, board.getOccupied()), myPiece);
     }
 }
@@ -0,0 +1,120 @@
+package chess;
+
+/**
+ * Reads moves written in standard algebraic notation (SAN), such as
+ * {@code e4}, {@code Nbd7}, {@code exd5}, {@code e8=Q+} or {@code O-O}.
+ */
+public final class San {
+
+    private San() {
+    }
+
+    /**
+     * Finds the legal move a SAN string describes in a position
+     *
+     * @param game the position the move is played from
+     * @param san  the move text; check, mate and annotation marks are ignored
+     * @return the move
+     * @throws IllegalArgumentException if the text is not a legal move in the position,
+     *                                  or is ambiguous
+     */
+    public static ChessMove parse(ChessGame game, String san) {
+        String text = san.replaceAll("[+#!?]+$", "");
+        if (text.equals("O-O") || text.equals("0-0")) {
+            return castle(game, 2, san);
+        }
+        if (text.equals("O-O-O") || text.equals("0-0-0")) {
+            return castle(game, -2, san);
+        }
+
+        ChessPiece.PieceType promotion = null;
+        int equals = text.indexOf('=');
+        if (equals >= 0) {
+            promotion = pieceType(text.charAt(equals + 1));
+            text = text.substring(0, equals);
+        }
+
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (!text.isEmpty() && Character.isUpperCase(text.charAt(0))) {
+            type = pieceType(text.charAt(0));
+            text = text.substring(1);
+        }
+        text = text.replace("x", "");
+        if (text.length() < 2) {
+            throw new IllegalArgumentException("Not a move: " + san);
+        }
+
+        int to = square(text.substring(text.length() - 2), san);
+        String from = text.substring(0, text.length() - 2);
+        int fromColumn = 0;
+        int fromRow = 0;
+        for (char c : from.toCharArray()) {
+            if (c >= 'a' && c <= 'h') {
+                fromColumn = c - 'a' + 1;
+            } else if (c >= '1' && c <= '8') {
+                fromRow = c - '0';
+            } else {
+                throw new IllegalArgumentException("Not a move: " + san);
+            }
+        }
+
+        MoveList moves = new MoveList();
+        game.generateMoves(moves);
+        int match = Move.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int start = Move.from(move);
+            if (Move.to(move) != to
+                    || game.getBoard().getPiece(start).getPieceType() != type
+                    || Move.promotion(move) != promotion
+                    || (fromColumn != 0 && Bitboards.column(start) != fromColumn)
+                    || (fromRow != 0 && Bitboards.row(start) != fromRow)) {
+                continue;
+            }
+            if (match != Move.NONE) {
+                throw new IllegalArgumentException("Ambiguous move: " + san);
+            }
+            match = move;
+        }
+        if (match == Move.NONE) {
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        return Move.toChessMove(match);
+    }
+
+    /**
+     * @param step how far the king moves: 2 toward the kingside rook, -2 toward the queenside
+     */
+    private static ChessMove castle(ChessGame game, int step, String san) {
+        int king = Castling.kingSquare(game.getTeamTurn());
+        MoveList moves = new MoveList();
+        game.generateMoves(moves);
+        int move = Move.of(king, king + step);
+        if (game.getBoard().getPiece(king) == null
+                || game.getBoard().getPiece(king).getPieceType() != ChessPiece.PieceType.KING
+                || !moves.contains(move)) {
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        return Move.toChessMove(move);
+    }
+
+    private static int square(String name, String san) {
+        char column = name.charAt(0);
+        char row = name.charAt(1);
+        if (column < 'a' || column > 'h' || row < '1' || row > '8') {
+            throw new IllegalArgumentException("Not a move: " + san);
+        }
+        return Bitboards.square(row - '0', column - 'a' + 1);
+    }
+
+    private static ChessPiece.PieceType pieceType(char letter) {
+        return switch (letter) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            default -> throw new IllegalArgumentException("Unknown piece '" + letter + "'");
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package chess;
+
+/**
+ * Stack of undo records for moves played on a ChessGame.
+ * <p>
+ * Records are allocated once and reused, so playing and taking back moves
+ * during legality checks or search does not allocate.
+ */
+class UndoStack {
+
+    /**
+     * Everything needed to take back one move
+     */
+    static class Record {
+        int from;
+        int to;
+        /* where the captured piece stood; differs from to only for en passant */
+        int captureSquare;
+        ChessPiece moved;
+        ChessPiece captured;
+        ChessGame.TeamColor teamTurn;
+        int castlingRights;
+        int enPassantFile;
+        int halfmoveClock;
+    }
+
+    private Record[] records = new Record[0];
+    private int size;
+
+    /**
+     * @return the reusable record on top of the stack; the caller fills in every field
+     */
+    Record push() {
+        if (size == records.length) {
+            Record[] grown = new Record[Math.max(16, size * 2)];
+            System.arraycopy(records, 0, grown, 0, size);
+            for (int i = size; i < grown.length; i++) {
+                grown[i] = new Record();
+            }
+            records = grown;
+        }
+        return records[size++];
+    }
+
+    Record pop() {
+        return records[--size];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            records[i].moved = null;
+            records[i].captured = null;
+        }
+        size = 0;
+    }
+}
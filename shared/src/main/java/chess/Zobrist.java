@@ -0,0 +1,79 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing of positions.
+ * <p>
+ * A position's key is the XOR of one key per piece on its square plus a key
+ * when black is to move, so making a move only needs a few XORs to update it.
+ * Castling rights and an en passant file add one more key each; having none
+ * of either adds nothing, so positions without them hash as before.
+ * The keys come from a fixed seed, so the same position hashes the same way
+ * in every run and on every machine.
+ */
+public final class Zobrist {
+
+    private static final long[][] PIECE_SQUARE_KEYS = new long[12][64];
+    private static final long BLACK_TO_MOVE_KEY;
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[9];
+
+    static {
+        long state = 0x2545F4914F6CDD1DL;
+        for (long[] keys : PIECE_SQUARE_KEYS) {
+            for (int square = 0; square < 64; square++) {
+                state += 0x9E3779B97F4A7C15L;
+                keys[square] = mix(state);
+            }
+        }
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE_KEY = mix(state);
+        for (int rights = 1; rights < CASTLING_KEYS.length; rights++) {
+            state += 0x9E3779B97F4A7C15L;
+            CASTLING_KEYS[rights] = mix(state);
+        }
+        for (int file = 1; file < EN_PASSANT_KEYS.length; file++) {
+            state += 0x9E3779B97F4A7C15L;
+            EN_PASSANT_KEYS[file] = mix(state);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @return the key for a piece standing on a square
+     */
+    public static long piece(ChessPiece piece, int square) {
+        return PIECE_SQUARE_KEYS[Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+
+    /**
+     * @return the key mixed in when it is black's turn
+     */
+    public static long blackToMove() {
+        return BLACK_TO_MOVE_KEY;
+    }
+
+    /**
+     * @return the key for a set of castling rights, 0 for none
+     */
+    public static long castling(int rights) {
+        return CASTLING_KEYS[rights];
+    }
+
+    /**
+     * @return the key for the 1-based column a pawn can be taken en passant on, 0 for none
+     */
+    public static long enPassant(int file) {
+        return EN_PASSANT_KEYS[file];
+    }
+
+    /**
+     * SplitMix64 finalizer
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
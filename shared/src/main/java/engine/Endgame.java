@@ -0,0 +1,293 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The material of one endgame table, named like {@code KRKP}: the stronger
+ * side's pieces, then the weaker side's, each starting with its king.
+ * <p>
+ * Tables are built with the stronger side as white. A position's index is
+ * its side to move (0 when the stronger side moves) followed by six bits for
+ * the square of each piece, in name order. Positions where black is the
+ * stronger side are mirrored top to bottom, with colors swapped, first.
+ * <p>
+ * Tables are generated over that full index, but stored folded by symmetry.
+ * The board is mirrored so the stronger king is on files a to d and, without
+ * pawns, also turned so it is in the a1-d1-d4 triangle. The two kings then
+ * index the legal pairs, leaving out touching kings, and the other pieces
+ * take six bits each. That is 462 king pairs without pawns and 1806 with
+ * them, in place of 4096, so a four-piece table is 3.8 MB without pawns and
+ * 14.8 MB with them, in place of 32 MB.
+ */
+final class Endgame {
+
+    static final int MAX_PIECES = 4;
+
+    private static final String ORDER = "KQRBNP";
+    private static final int[] VALUES = {0, 9, 5, 3, 3, 1};
+    private static final ChessPiece.PieceType[] TYPES = {
+            ChessPiece.PieceType.KING,
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.PAWN
+    };
+
+    private static final Map<String, Endgame> ENDGAMES = new ConcurrentHashMap<>();
+
+    /* the king pair index of each stronger king and weaker king square, or -1 */
+    private static final int[] PAWNLESS_PAIRS = new int[64 * 64];
+    private static final int[] PAWN_PAIRS = new int[64 * 64];
+    private static final int PAWNLESS_PAIR_COUNT = kingPairs(PAWNLESS_PAIRS, false);
+    private static final int PAWN_PAIR_COUNT = kingPairs(PAWN_PAIRS, true);
+
+    private static final int FLIP_FILES = 1;
+    private static final int FLIP_RANKS = 2;
+    private static final int TRANSPOSE = 4;
+
+    final String name;
+    final ChessPiece[] pieces;
+    /* the number of indexes, which generation works over */
+    final int size;
+    /* the number of entries in the stored table */
+    final int tableSize;
+    private final boolean pawns;
+    private final int weakKing;
+    private final int[] pairs;
+
+    private Endgame(String name, ChessPiece[] pieces) {
+        this.name = name;
+        this.pieces = pieces;
+        this.size = 2 << (6 * pieces.length);
+        this.pawns = name.indexOf('P') >= 0;
+        this.weakKing = name.indexOf('K', 1);
+        this.pairs = pawns ? PAWN_PAIRS : PAWNLESS_PAIRS;
+        this.tableSize = 2 * (pawns ? PAWN_PAIR_COUNT : PAWNLESS_PAIR_COUNT) << (6 * (pieces.length - 2));
+    }
+
+    /**
+     * Numbers the king pairs a stored table keeps: the stronger king on files
+     * a to d, without pawns also in the a1-d1-d4 triangle with the weaker king
+     * on or below the a1-h8 diagonal when the stronger king is on it, and the
+     * kings not touching
+     *
+     * @return the number of pairs
+     */
+    private static int kingPairs(int[] pairs, boolean pawns) {
+        Arrays.fill(pairs, -1);
+        int count = 0;
+        for (int strong = 0; strong < 64; strong++) {
+            int file = strong & 7;
+            int rank = strong >>> 3;
+            if (file > 3 || (!pawns && rank > file)) {
+                continue;
+            }
+            for (int weak = 0; weak < 64; weak++) {
+                boolean touching = Math.abs((weak & 7) - file) <= 1 && Math.abs((weak >>> 3) - rank) <= 1;
+                if (touching || (!pawns && rank == file && (weak >>> 3) > (weak & 7))) {
+                    continue;
+                }
+                pairs[strong * 64 + weak] = count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param name a table name in canonical form, such as {@code KQK}
+     * @throws IllegalArgumentException if the name is not a canonical endgame of at most MAX_PIECES pieces
+     */
+    static Endgame of(String name) {
+        return ENDGAMES.computeIfAbsent(name, Endgame::parse);
+    }
+
+    private static Endgame parse(String name) {
+        int split = name.indexOf('K', 1);
+        if (!name.startsWith("K") || split < 0 || name.length() > MAX_PIECES) {
+            throw new IllegalArgumentException("Not an endgame: " + name);
+        }
+        String strong = name.substring(0, split);
+        String weak = name.substring(split);
+        if (!name.equals(canonical(side(strong), side(weak))) || isDrawn(name)) {
+            throw new IllegalArgumentException("Not a canonical endgame with mating material: " + name);
+        }
+
+        ChessPiece[] pieces = new ChessPiece[name.length()];
+        for (int i = 0; i < pieces.length; i++) {
+            ChessGame.TeamColor color = i < split ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            pieces[i] = ChessPiece.of(color, TYPES[ORDER.indexOf(name.charAt(i))]);
+        }
+        return new Endgame(name, pieces);
+    }
+
+    /**
+     * @return True if neither side can ever mate, so the endgame needs no table
+     */
+    static boolean isDrawn(String name) {
+        return name.equals("KK") || name.equals("KBK") || name.equals("KNK");
+    }
+
+    /**
+     * @return the letters for one side's pieces on a board, in name order
+     */
+    static String side(ChessBoard board, ChessGame.TeamColor color) {
+        StringBuilder letters = new StringBuilder(MAX_PIECES);
+        for (int i = 0; i < TYPES.length; i++) {
+            int count = Long.bitCount(board.getPieces(color, TYPES[i]));
+            for (int j = 0; j < count; j++) {
+                letters.append(ORDER.charAt(i));
+            }
+        }
+        return letters.toString();
+    }
+
+    /**
+     * Sorts one side's piece letters into name order
+     */
+    static String side(String letters) {
+        StringBuilder sorted = new StringBuilder(letters.length());
+        for (int i = 0; i < ORDER.length(); i++) {
+            for (int j = 0; j < letters.length(); j++) {
+                if (letters.charAt(j) == ORDER.charAt(i)) {
+                    sorted.append(ORDER.charAt(i));
+                }
+            }
+        }
+        return sorted.toString();
+    }
+
+    /**
+     * @return the table name for two sides' letters, with the stronger side first
+     */
+    static String canonical(String white, String black) {
+        return isStronger(black, white) ? black + white : white + black;
+    }
+
+    /**
+     * @return True if side a has more material than side b, or the same amount
+     * made of stronger pieces
+     */
+    static boolean isStronger(String a, String b) {
+        if (value(a) != value(b)) {
+            return value(a) > value(b);
+        }
+        for (int i = 0; i < Math.min(a.length(), b.length()); i++) {
+            int pieceA = ORDER.indexOf(a.charAt(i));
+            int pieceB = ORDER.indexOf(b.charAt(i));
+            if (pieceA != pieceB) {
+                return pieceA < pieceB;
+            }
+        }
+        return a.length() > b.length();
+    }
+
+    private static int value(String letters) {
+        int value = 0;
+        for (int i = 0; i < letters.length(); i++) {
+            value += VALUES[ORDER.indexOf(letters.charAt(i))];
+        }
+        return value;
+    }
+
+    /**
+     * @param board   a position with exactly this endgame's material
+     * @param toMove  the side to move
+     * @param flipped True if black is the stronger side on the board
+     * @return the position's index in this table
+     */
+    int index(ChessBoard board, ChessGame.TeamColor toMove, boolean flipped) {
+        ChessGame.TeamColor strong = flipped ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        int index = toMove == strong ? 0 : 1;
+        long used = 0;
+        for (ChessPiece piece : pieces) {
+            ChessGame.TeamColor color = piece.getTeamColor() == ChessGame.TeamColor.WHITE ? strong : strong.opponent();
+            long candidates = board.getPieces(color, piece.getPieceType()) & ~used;
+            int square = Long.numberOfTrailingZeros(candidates);
+            used |= candidates & -candidates;
+            index = (index << 6) | (flipped ? square ^ 56 : square);
+        }
+        return index;
+    }
+
+    /**
+     * Folds an index by symmetry into the stored table
+     *
+     * @return the entry holding the index's value, or -1 if the kings touch
+     */
+    int tableIndex(int index) {
+        int strong = square(index, 0);
+        int weak = square(index, weakKing);
+        int symmetry = (strong & 7) > 3 ? FLIP_FILES : 0;
+        if (!pawns) {
+            if ((strong >>> 3) > 3) {
+                symmetry |= FLIP_RANKS;
+            }
+            int king = transform(strong, symmetry);
+            int other = transform(weak, symmetry);
+            if ((king >>> 3) > (king & 7) || ((king >>> 3) == (king & 7) && (other >>> 3) > (other & 7))) {
+                symmetry |= TRANSPOSE;
+            }
+        }
+
+        int pair = pairs[transform(strong, symmetry) * 64 + transform(weak, symmetry)];
+        if (pair < 0) {
+            return -1;
+        }
+        int entry = sideToMove(index) * (pawns ? PAWN_PAIR_COUNT : PAWNLESS_PAIR_COUNT) + pair;
+        for (int slot = 1; slot < pieces.length; slot++) {
+            if (slot != weakKing) {
+                entry = (entry << 6) | transform(square(index, slot), symmetry);
+            }
+        }
+        return entry;
+    }
+
+    private static int transform(int square, int symmetry) {
+        if ((symmetry & FLIP_FILES) != 0) {
+            square ^= 7;
+        }
+        if ((symmetry & FLIP_RANKS) != 0) {
+            square ^= 56;
+        }
+        if ((symmetry & TRANSPOSE) != 0) {
+            square = ((square & 7) << 3) | (square >>> 3);
+        }
+        return square;
+    }
+
+    /**
+     * @return the square of piece {@code slot} in an index
+     */
+    int square(int index, int slot) {
+        return (index >>> (6 * (pieces.length - 1 - slot))) & 63;
+    }
+
+    /**
+     * @return the index with piece {@code slot} moved to another square
+     */
+    int withSquare(int index, int slot, int square) {
+        int shift = 6 * (pieces.length - 1 - slot);
+        return (index & ~(63 << shift)) | (square << shift);
+    }
+
+    /**
+     * @return 0 if the stronger (white) side moves in an index, otherwise 1
+     */
+    int sideToMove(int index) {
+        return index >>> (6 * pieces.length);
+    }
+
+    /**
+     * @return the index with the other side to move
+     */
+    int withOtherSideToMove(int index) {
+        return index ^ (1 << (6 * pieces.length));
+    }
+}
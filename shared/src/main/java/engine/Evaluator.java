@@ -0,0 +1,36 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.PieceSquareTables;
+
+/**
+ * Static evaluation of a position, in centipawns.
+ * <p>
+ * The board keeps middlegame and endgame material plus piece-square totals
+ * up to date as pieces move, so evaluating is constant time: the two totals
+ * are blended by how much material is left (the game phase), which lets
+ * piece placement matter differently as the game goes on, e.g. the king
+ * hides early and centralizes late.
+ */
+public final class Evaluator {
+
+    /**
+     * Rough piece values for move ordering, indexed by {@link chess.ChessPiece.PieceType} ordinal
+     */
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private Evaluator() {
+    }
+
+    /**
+     * @return the score from the point of view of the team to move
+     */
+    public static int evaluate(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        int phase = board.getPhase();
+        int score = (board.getMiddlegameScore() * phase
+                + board.getEndgameScore() * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,154 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * A read-only opening book, memory-mapped from a file written by
+ * {@link OpeningBookBuilder}.
+ * <p>
+ * The file is a 16-byte header (magic, version, record count) followed by
+ * 16-byte records of position key, packed move and weight, sorted by key.
+ * Lookups binary search the mapped file directly, so the book takes no heap
+ * and the operating system pages in only the parts that are used. Lookups
+ * are safe from any thread.
+ */
+public class OpeningBook {
+
+    static final int MAGIC = 0x4348424B;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 16;
+
+    /**
+     * A book move with how often it was played
+     */
+    public record Entry(ChessMove move, int weight) {
+    }
+
+    private final MappedByteBuffer buffer;
+    private final int count;
+
+    private OpeningBook(MappedByteBuffer buffer, int count) {
+        this.buffer = buffer;
+        this.count = count;
+    }
+
+    /**
+     * Maps a book file into memory
+     *
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Opening book is larger than 2 GB: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported opening book version " + buffer.getInt(4) + ": " + path);
+            }
+            long count = buffer.getLong(8);
+            if (HEADER_BYTES + count * RECORD_BYTES != buffer.limit()) {
+                throw new IOException("Opening book is truncated: " + path);
+            }
+            return new OpeningBook(buffer, (int) count);
+        }
+    }
+
+    /**
+     * @return the number of (position, move) records
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the book moves for a position, skipping any that are not legal
+     * there (possible if two positions share a key)
+     *
+     * @return the moves, empty if the position is not in the book
+     */
+    public List<Entry> lookup(ChessGame game) {
+        List<Entry> entries = new ArrayList<>();
+        MoveList legal = new MoveList();
+        game.generateMoves(legal);
+        for (int i = firstRecord(game.getZobristKey()); i < count && keyAt(i) == game.getZobristKey(); i++) {
+            int move = moveAt(i);
+            if (legal.contains(move)) {
+                entries.add(new Entry(Move.toChessMove(move), weightAt(i)));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Chooses a book move at random, weighted by how often each was played
+     *
+     * @return the move, or null if the position is not in the book
+     */
+    public ChessMove pick(ChessGame game, RandomGenerator random) {
+        List<Entry> entries = lookup(game);
+        long total = 0;
+        for (Entry entry : entries) {
+            total += entry.weight();
+        }
+        if (total == 0) {
+            return null;
+        }
+        long choice = random.nextLong(total);
+        for (Entry entry : entries) {
+            choice -= entry.weight();
+            if (choice < 0) {
+                return entry.move();
+            }
+        }
+        return entries.get(entries.size() - 1).move();
+    }
+
+    /**
+     * @return the index of the first record with the key, or of the first
+     * larger key if there is none
+     */
+    private int firstRecord(long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keyAt(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return buffer.getLong(HEADER_BYTES + index * RECORD_BYTES);
+    }
+
+    private int moveAt(int index) {
+        return buffer.getInt(HEADER_BYTES + index * RECORD_BYTES + 8);
+    }
+
+    private int weightAt(int index) {
+        return buffer.getInt(HEADER_BYTES + index * RECORD_BYTES + 12);
+    }
+}
@@ -0,0 +1,142 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.Move;
+import chess.San;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds an {@link OpeningBook} file from played games. Each position reached
+ * in the first moves of a game records the move played from it, and the
+ * move's weight is the number of games that played it.
+ * <p>
+ * Run from the command line with
+ * {@code OpeningBookBuilder <book file> <pgn file>... [--max-ply <n>]}.
+ */
+public class OpeningBookBuilder {
+
+    public static final int DEFAULT_MAX_PLY = 20;
+
+    private final int maxPly;
+    private final Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+    private int games;
+
+    /**
+     * @param maxPly how many moves (by either side) of each game to record
+     */
+    public OpeningBookBuilder(int maxPly) {
+        this.maxPly = maxPly;
+    }
+
+    /**
+     * Records the opening of a game played from the starting position. A
+     * game stops counting at its first illegal move.
+     */
+    public void addGame(List<ChessMove> moves) {
+        ChessGame game = new ChessGame();
+        for (int ply = 0; ply < Math.min(maxPly, moves.size()); ply++) {
+            ChessMove move = moves.get(ply);
+            long key = game.getZobristKey();
+            try {
+                game.makeMove(move);
+            } catch (InvalidMoveException e) {
+                break;
+            }
+            counts.computeIfAbsent(key, k -> new HashMap<>()).merge(Move.encode(move), 1, Integer::sum);
+        }
+        games++;
+    }
+
+    /**
+     * Records every game in PGN text. Each game stops counting at the first
+     * move that cannot be read or played, such as a misspelled or ambiguous
+     * move in a hand-edited file.
+     */
+    public void addPgn(Reader pgn) throws IOException {
+        PgnReader.read(pgn, sans -> {
+            ChessGame game = new ChessGame();
+            List<ChessMove> moves = new ArrayList<>();
+            for (String san : sans.subList(0, Math.min(maxPly, sans.size()))) {
+                try {
+                    ChessMove move = San.parse(game, san);
+                    game.makeMove(move);
+                    moves.add(move);
+                } catch (IllegalArgumentException | InvalidMoveException e) {
+                    break;
+                }
+            }
+            addGame(moves);
+        });
+    }
+
+    /**
+     * @return how many games have been added
+     */
+    public int getGameCount() {
+        return games;
+    }
+
+    /**
+     * Writes the book, sorted by position key
+     */
+    public void write(Path path) throws IOException {
+        TreeMap<Long, Map<Integer, Integer>> sorted = new TreeMap<>(counts);
+        long records = 0;
+        for (Map<Integer, Integer> moves : sorted.values()) {
+            records += moves.size();
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeLong(records);
+            for (var position : sorted.entrySet()) {
+                for (var move : new TreeMap<>(position.getValue()).entrySet()) {
+                    out.writeLong(position.getKey());
+                    out.writeInt(move.getKey());
+                    out.writeInt(move.getValue());
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxPly = DEFAULT_MAX_PLY;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--max-ply") && i + 1 < args.length) {
+                maxPly = Integer.parseInt(args[++i]);
+            } else {
+                files.add(args[i]);
+            }
+        }
+        if (files.size() < 2) {
+            System.out.println("Usage: OpeningBookBuilder <book file> <pgn file>... [--max-ply <n>]");
+            return;
+        }
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(maxPly);
+        for (String file : files.subList(1, files.size())) {
+            try (Reader reader = Files.newBufferedReader(Path.of(file), StandardCharsets.ISO_8859_1)) {
+                builder.addPgn(reader);
+            }
+        }
+        Path book = Path.of(files.get(0));
+        builder.write(book);
+        System.out.println("Wrote " + builder.getGameCount() + " games to " + book);
+    }
+}
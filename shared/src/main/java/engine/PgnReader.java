@@ -0,0 +1,85 @@
+package engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the main line of each game in a PGN file as SAN move text.
+ * <p>
+ * Tag pairs, comments, variations, annotation glyphs and move numbers are
+ * skipped. A game ends at its result token, or at the end of the input.
+ */
+public final class PgnReader {
+
+    private PgnReader() {
+    }
+
+    /**
+     * @param reader the PGN text, read to the end but not closed
+     * @param games  called with the SAN moves of each game, in order
+     */
+    public static void read(Reader reader, Consumer<List<String>> games) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        List<String> moves = new ArrayList<>();
+        int commentDepth = 0;
+        int variationDepth = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (commentDepth == 0 && variationDepth == 0 && line.startsWith("[")) {
+                continue;
+            }
+            StringBuilder token = new StringBuilder();
+            for (int i = 0; i <= line.length(); i++) {
+                char c = i < line.length() ? line.charAt(i) : ' ';
+                if (commentDepth > 0) {
+                    if (c == '}') {
+                        commentDepth = 0;
+                    }
+                    continue;
+                }
+                if (c == '{' || c == ';' || c == '(' || c == ')' || Character.isWhitespace(c)) {
+                    if (variationDepth == 0 && endToken(token.toString(), moves, games)) {
+                        moves = new ArrayList<>();
+                    }
+                    token.setLength(0);
+                    if (c == '{') {
+                        commentDepth = 1;
+                    } else if (c == ';') {
+                        break;
+                    } else if (c == '(') {
+                        variationDepth++;
+                    } else if (c == ')') {
+                        variationDepth = Math.max(0, variationDepth - 1);
+                    }
+                } else {
+                    token.append(c);
+                }
+            }
+        }
+        if (!moves.isEmpty()) {
+            games.accept(moves);
+        }
+    }
+
+    /**
+     * Handles one token of move text
+     *
+     * @return True if the token ended the game
+     */
+    private static boolean endToken(String token, List<String> moves, Consumer<List<String>> games) {
+        String move = token.replaceFirst("^\\d+\\.+", "");
+        if (move.isEmpty() || move.startsWith("$")) {
+            return false;
+        }
+        if (move.equals("1-0") || move.equals("0-1") || move.equals("1/2-1/2") || move.equals("*")) {
+            games.accept(moves);
+            return true;
+        }
+        moves.add(move);
+        return false;
+    }
+}
@@ -0,0 +1,590 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Finds the best move in a position.
+ * <p>
+ * Iterative deepening runs a principal variation search at depth 1, 2, 3...
+ * until a limit is hit, keeping the result of the last finished iteration.
+ * Each iteration tries the previous best line first, so later iterations cut
+ * off quickly. At the leaves a quiescence search plays out captures so the
+ * evaluation is not taken in the middle of an exchange. Other moves are
+ * ordered by captures (most valuable victim, least valuable attacker), then
+ * killer moves that caused a cutoff at the same ply, then the history of
+ * cutoffs each move has caused anywhere in the tree.
+ * <p>
+ * Results are kept in a transposition table, so a position reached again by
+ * a different move order is not searched twice, and its best move is tried
+ * first. Searches may share one table.
+ * <p>
+ * A search works on its own copy of the game, so the caller's game is never
+ * changed. Searches are not thread safe; use one per thread. Interrupting the
+ * searching thread stops the search early, like running out of time.
+ * <p>
+ * With more than one thread, the search uses Lazy SMP: every thread searches
+ * the same root on its own copy of the game, communicating only through the
+ * shared transposition table. Half of the helper threads start one iteration
+ * deeper, so threads finish different depths at different times and fill
+ * the table with results the others can use. The deepest finished iteration
+ * across all threads is reported; the main thread's wins ties. Helpers run
+ * on an executor the caller supplies, so a server can keep one pool for all
+ * its searches; a helper that has not started by the time the main thread
+ * finishes is skipped.
+ */
+public class Search {
+
+    /**
+     * Score for checkmating the opponent now; mates further away score lower
+     */
+    public static final int MATE = 100_000;
+
+    private static final int INFINITY = MATE + 1;
+    private static final int MAX_PLY = SearchLimits.MAX_DEPTH + 32;
+    private static final int CHECK_EVERY = 2048;
+
+    /**
+     * Table size used when the caller does not supply a table
+     */
+    public static final int DEFAULT_TABLE_MB = 1;
+
+    private static final int PV_BONUS = 2_000_000;
+    private static final int TABLE_BONUS = 1_500_000;
+    private static final int CAPTURE_BONUS = 1_000_000;
+    private static final int KILLER_BONUS = 900_000;
+
+    private final ChessGame game;
+    private final SearchLimits limits;
+    private final TranspositionTable table;
+    private final Tablebase tablebase;
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    private final int[][] scores = new int[MAX_PLY][MoveList.CAPACITY];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[64][64];
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+
+    private final long nodeLimit;
+    private final int startDepth;
+    private final AtomicBoolean sharedStop;
+
+    private long nodes;
+    private long deadline;
+    private boolean stopped;
+    private int[] previousPv = new int[0];
+    private boolean followPv;
+
+    /**
+     * @param game   the position to search, which is copied
+     * @param limits when to stop searching
+     * @param table  the transposition table to use, which may be shared with other searches
+     */
+    public Search(ChessGame game, SearchLimits limits, TranspositionTable table) {
+        this(game, limits, table, null);
+    }
+
+    /**
+     * @param game      the position to search, which is copied
+     * @param limits    when to stop searching
+     * @param table     the transposition table to use, which may be shared with other searches
+     * @param tablebase endgame tablebases to score small endgames with, or null for none
+     */
+    public Search(ChessGame game, SearchLimits limits, TranspositionTable table, Tablebase tablebase) {
+        this(game, limits, table, tablebase, limits.nodes(), 1, new AtomicBoolean());
+    }
+
+    /**
+     * Creates one thread's search within a parallel search
+     */
+    private Search(ChessGame game, SearchLimits limits, TranspositionTable table, Tablebase tablebase,
+                   long nodeLimit, int startDepth, AtomicBoolean sharedStop) {
+        this.game = new ChessGame(game);
+        this.limits = limits;
+        this.table = table;
+        this.tablebase = tablebase;
+        this.nodeLimit = nodeLimit;
+        this.startDepth = startDepth;
+        this.sharedStop = sharedStop;
+        for (int i = 0; i < MAX_PLY; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Searches a position and returns the best move found within the limits
+     *
+     * @param game   the position to search; it is not changed
+     * @param limits when to stop searching
+     * @return the chosen move and statistics about the search
+     */
+    public static SearchResult bestMove(ChessGame game, SearchLimits limits) {
+        return bestMove(game, limits, new TranspositionTable(DEFAULT_TABLE_MB));
+    }
+
+    /**
+     * Searches a position using a shared transposition table
+     *
+     * @param game   the position to search; it is not changed
+     * @param limits when to stop searching
+     * @param table  the table to read and fill
+     * @return the chosen move and statistics about the search
+     */
+    public static SearchResult bestMove(ChessGame game, SearchLimits limits, TranspositionTable table) {
+        return bestMove(game, limits, table, null);
+    }
+
+    /**
+     * Searches a position using a shared transposition table and endgame tablebases
+     *
+     * @param game      the position to search; it is not changed
+     * @param limits    when to stop searching
+     * @param table     the table to read and fill
+     * @param tablebase the tablebases to probe, or null for none
+     * @return the chosen move and statistics about the search
+     */
+    public static SearchResult bestMove(ChessGame game, SearchLimits limits, TranspositionTable table,
+                                        Tablebase tablebase) {
+        return bestMove(game, limits, table, tablebase, null);
+    }
+
+    /**
+     * Searches a position, running the helper threads of a parallel search on
+     * the given executor
+     *
+     * @param game      the position to search; it is not changed
+     * @param limits    when to stop searching
+     * @param table     the table to read and fill
+     * @param tablebase the tablebases to probe, or null for none
+     * @param helpers   runs the helper searches, or null to start threads for
+     *                  this search alone
+     * @return the chosen move and statistics about the search
+     */
+    public static SearchResult bestMove(ChessGame game, SearchLimits limits, TranspositionTable table,
+                                        Tablebase tablebase, ExecutorService helpers) {
+        if (tablebase != null) {
+            SearchResult result = probeRoot(game, tablebase);
+            if (result != null) {
+                return result;
+            }
+        }
+        if (limits.threads() == 1) {
+            return new Search(game, limits, table, tablebase).run();
+        }
+        if (helpers != null) {
+            return searchParallel(game, limits, table, tablebase, helpers);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(limits.threads() - 1);
+        try {
+            return searchParallel(game, limits, table, tablebase, pool);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Picks the root move from the tablebases when they cover every move
+     *
+     * @return the result, or null if the root has no legal moves or some move leaves the tables
+     */
+    private static SearchResult probeRoot(ChessGame game, Tablebase tablebase) {
+        long start = System.currentTimeMillis();
+        if (tablebase.probe(game) == Tablebase.MISS) {
+            return null;
+        }
+        ChessGame copy = new ChessGame(game);
+        MoveList moves = new MoveList();
+        copy.generateMoves(moves);
+        int bestMove = Move.NONE;
+        int bestScore = -INFINITY;
+        for (int i = 0; i < moves.size(); i++) {
+            copy.playMove(moves.get(i));
+            int value = tablebase.probe(copy);
+            copy.unmakeMove();
+            if (value == Tablebase.MISS) {
+                return null;
+            }
+            int score = -tablebaseScore(value, 1);
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = moves.get(i);
+            }
+        }
+        if (bestMove == Move.NONE) {
+            return null;
+        }
+        ChessMove move = Move.toChessMove(bestMove);
+        return new SearchResult(move, bestScore, 1, moves.size(), System.currentTimeMillis() - start, List.of(move));
+    }
+
+    /**
+     * @return the search score, for the side to move at a ply, of a tablebase value
+     */
+    private static int tablebaseScore(int value, int ply) {
+        if (Tablebase.isWin(value)) {
+            return MATE - ply - Tablebase.distanceToMate(value);
+        }
+        if (Tablebase.isLoss(value)) {
+            return -MATE + ply + Tablebase.distanceToMate(value);
+        }
+        return 0;
+    }
+
+    private static SearchResult searchParallel(ChessGame game, SearchLimits limits, TranspositionTable table,
+                                               Tablebase tablebase, ExecutorService pool) {
+        long start = System.currentTimeMillis();
+        int threads = limits.threads();
+        long nodeLimit = limits.nodes() == 0 ? 0 : Math.max(1, limits.nodes() / threads);
+        AtomicBoolean stop = new AtomicBoolean();
+        table.newSearch();
+
+        Search main = new Search(game, limits, table, tablebase, nodeLimit, 1, stop);
+        List<Search> helpers = new ArrayList<>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            helpers.add(new Search(game, limits, table, tablebase, nodeLimit, 1 + (i & 1), stop));
+        }
+
+        List<AtomicBoolean> started = new ArrayList<>(helpers.size());
+        List<Future<SearchResult>> futures = new ArrayList<>(helpers.size());
+        try {
+            for (Search helper : helpers) {
+                AtomicBoolean claimed = new AtomicBoolean();
+                started.add(claimed);
+                futures.add(pool.submit(() -> claimed.compareAndSet(false, true) ? helper.iterate() : null));
+            }
+            SearchResult best = main.iterate();
+            stop.set(true);
+
+            long nodes = best.nodes();
+            for (int i = 0; i < futures.size(); i++) {
+                if (started.get(i).compareAndSet(false, true)) {
+                    futures.get(i).cancel(false);
+                    continue;
+                }
+                SearchResult result = awaitHelper(futures.get(i));
+                nodes += result.nodes();
+                if (result.depth() > best.depth()) {
+                    best = result;
+                }
+            }
+            return new SearchResult(best.bestMove(), best.score(), best.depth(), nodes,
+                    System.currentTimeMillis() - start, best.principalVariation());
+        } finally {
+            stop.set(true);
+            for (AtomicBoolean claimed : started) {
+                claimed.set(true);
+            }
+        }
+    }
+
+    /**
+     * Waits for a helper thread that has been told to stop. An interrupt
+     * stops the main thread like running out of time, and the helpers stop
+     * within a few thousand nodes once told to, so the wait is short; the
+     * interrupt is kept for the caller to see.
+     */
+    private static SearchResult awaitHelper(Future<SearchResult> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Search thread failed", e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return True if a score means a forced checkmate for either side
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE - MAX_PLY - Tablebase.MAX_DISTANCE;
+    }
+
+    /**
+     * Runs iterative deepening until a limit is reached
+     */
+    public SearchResult run() {
+        table.newSearch();
+        return iterate();
+    }
+
+    private SearchResult iterate() {
+        long start = System.currentTimeMillis();
+        deadline = limits.timeMillis() == 0 ? Long.MAX_VALUE : start + limits.timeMillis();
+
+        MoveList rootMoves = new MoveList();
+        game.generateMoves(rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = game.isInCheck(game.getTeamTurn()) ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, 0, List.of());
+        }
+
+        int bestScore = 0;
+        int completedDepth = 0;
+        previousPv = new int[]{rootMoves.get(0)};
+        for (int depth = startDepth; depth <= limits.maxDepth(); depth++) {
+            followPv = true;
+            int score = search(depth, 0, -INFINITY, INFINITY);
+            if (stopped) {
+                break;
+            }
+            bestScore = score;
+            completedDepth = depth;
+            previousPv = new int[pvLength[0]];
+            System.arraycopy(pv[0], 0, previousPv, 0, pvLength[0]);
+            if (isMateScore(score) || rootMoves.size() == 1 || outOfTime()) {
+                break;
+            }
+        }
+
+        List<ChessMove> line = new ArrayList<>(previousPv.length);
+        for (int move : previousPv) {
+            line.add(Move.toChessMove(move));
+        }
+        return new SearchResult(line.get(0), bestScore, completedDepth, nodes,
+                System.currentTimeMillis() - start, List.copyOf(line));
+    }
+
+    private int search(int depth, int ply, int alpha, int beta) {
+        boolean onPv = followPv;
+        followPv = false;
+        pvLength[ply] = 0;
+        if (ply > 0 && (game.isRepetition() || game.isFiftyMoveRule())) {
+            return 0;
+        }
+        if (ply > 0 && tablebase != null) {
+            int value = tablebase.probe(game);
+            if (value != Tablebase.MISS) {
+                return tablebaseScore(value, ply);
+            }
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiescence(ply, alpha, beta);
+        }
+        if (countNode()) {
+            return 0;
+        }
+
+        long key = game.getZobristKey();
+        long entry = table.probe(key);
+        int tableMove = Move.NONE;
+        if (entry != TranspositionTable.MISS) {
+            tableMove = TranspositionTable.move(entry);
+            if (ply > 0 && beta - alpha == 1 && TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.score(entry, ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        game.generateMoves(moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(moves, ply, onPv, tableMove);
+
+        int bestMove = Move.NONE;
+        boolean first = true;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, ply, i);
+            followPv = onPv && first && isPreviousPvMove(move, ply);
+            game.playMove(move);
+            int score;
+            if (first) {
+                score = -search(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                score = -search(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            game.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            first = false;
+
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+                updatePv(ply, move);
+                if (score >= beta) {
+                    if (!Move.isCapture(move)) {
+                        rememberCutoff(move, ply, depth);
+                    }
+                    table.store(key, move, beta, depth, TranspositionTable.LOWER_BOUND, ply);
+                    return beta;
+                }
+            }
+        }
+        int bound = bestMove == Move.NONE ? TranspositionTable.UPPER_BOUND : TranspositionTable.EXACT;
+        table.store(key, bestMove, alpha, depth, bound, ply);
+        return alpha;
+    }
+
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if (countNode()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluator.evaluate(game);
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        MoveList moves = moveLists[ply];
+        if (inCheck) {
+            game.generateMoves(moves);
+            if (moves.isEmpty()) {
+                return -MATE + ply;
+            }
+        } else {
+            int standPat = Evaluator.evaluate(game);
+            if (standPat >= beta) {
+                return beta;
+            }
+            alpha = Math.max(alpha, standPat);
+            game.generateCaptures(moves);
+        }
+        scoreMoves(moves, ply, false, Move.NONE);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, ply, i);
+            game.playMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            game.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return beta;
+            }
+            alpha = Math.max(alpha, score);
+        }
+        return alpha;
+    }
+
+    /**
+     * Counts a node and checks the limits every so often
+     *
+     * @return True if the search must stop
+     */
+    private boolean countNode() {
+        nodes++;
+        if (nodeLimit != 0 && nodes >= nodeLimit) {
+            stopped = true;
+        } else if ((nodes & (CHECK_EVERY - 1)) == 0
+                && (sharedStop.get() || Thread.currentThread().isInterrupted()
+                || System.currentTimeMillis() >= deadline)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * Stops early when the next iteration is unlikely to finish in the time left
+     */
+    private boolean outOfTime() {
+        if (deadline == Long.MAX_VALUE) {
+            return false;
+        }
+        long remaining = deadline - System.currentTimeMillis();
+        return remaining < (limits.timeMillis() / 2);
+    }
+
+    private boolean isPreviousPvMove(int move, int ply) {
+        return ply < previousPv.length && Move.withoutFlags(move) == Move.withoutFlags(previousPv[ply]);
+    }
+
+    private void scoreMoves(MoveList moves, int ply, boolean onPv, int tableMove) {
+        int[] moveScores = scores[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = Move.from(move);
+            int to = Move.to(move);
+            if (onPv && isPreviousPvMove(move, ply)) {
+                moveScores[i] = PV_BONUS;
+            } else if (tableMove != Move.NONE && Move.withoutFlags(move) == Move.withoutFlags(tableMove)) {
+                moveScores[i] = TABLE_BONUS;
+            } else if (Move.isCapture(move)) {
+                ChessPiece victim = game.getBoard().getPiece(to);
+                ChessPiece attacker = game.getBoard().getPiece(from);
+                // an en passant capture lands on an empty square and takes a pawn
+                ChessPiece.PieceType taken = victim == null ? ChessPiece.PieceType.PAWN : victim.getPieceType();
+                moveScores[i] = CAPTURE_BONUS + 10 * Evaluator.PIECE_VALUES[taken.ordinal()]
+                        - Evaluator.PIECE_VALUES[attacker.getPieceType().ordinal()] / 10;
+            } else if (move == killers[ply][0] || move == killers[ply][1]) {
+                moveScores[i] = KILLER_BONUS;
+            } else {
+                moveScores[i] = history[from][to];
+            }
+            if (Move.isPromotion(move)) {
+                moveScores[i] += Evaluator.PIECE_VALUES[Move.promotion(move).ordinal()];
+            }
+        }
+    }
+
+    /**
+     * Swaps the highest scoring remaining move into place, so moves are only
+     * sorted as far as the search actually gets
+     */
+    private int pickNext(MoveList moves, int ply, int index) {
+        int[] moveScores = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (moveScores[i] > moveScores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            moves.swap(index, best);
+            int score = moveScores[index];
+            moveScores[index] = moveScores[best];
+            moveScores[best] = score;
+        }
+        return moves.get(index);
+    }
+
+    private void rememberCutoff(int move, int ply, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] fromHistory = history[Move.from(move)];
+        fromHistory[Move.to(move)] = Math.min(fromHistory[Move.to(move)] + depth * depth, KILLER_BONUS - 1);
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][0] = move;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+}
@@ -0,0 +1,60 @@
+package engine;
+
+/**
+ * When a search should stop. A limit of zero means no limit; the search ends
+ * when the first of the set limits is reached.
+ *
+ * @param depth      deepest iteration to search, in plies
+ * @param timeMillis wall clock budget in milliseconds
+ * @param nodes      budget of positions visited, across all threads
+ * @param threads    how many threads search in parallel, at least 1
+ */
+public record SearchLimits(int depth, long timeMillis, long nodes, int threads) {
+
+    /**
+     * Deepest search allowed regardless of the limits, in plies
+     */
+    public static final int MAX_DEPTH = 64;
+
+    public SearchLimits {
+        if (depth < 0 || timeMillis < 0 || nodes < 0) {
+            throw new IllegalArgumentException("Search limits cannot be negative");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("A search needs at least one thread");
+        }
+    }
+
+    /**
+     * Limits for a single-threaded search
+     */
+    public SearchLimits(int depth, long timeMillis, long nodes) {
+        this(depth, timeMillis, nodes, 1);
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(0, timeMillis, 0);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, 0, nodes);
+    }
+
+    /**
+     * @return these limits searched with the given number of threads
+     */
+    public SearchLimits withThreads(int threads) {
+        return new SearchLimits(depth, timeMillis, nodes, threads);
+    }
+
+    /**
+     * @return the deepest iteration to run
+     */
+    int maxDepth() {
+        return depth == 0 ? MAX_DEPTH : Math.min(depth, MAX_DEPTH);
+    }
+}
@@ -0,0 +1,26 @@
+package engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * The outcome of a search
+ *
+ * @param bestMove           the move to play, or null if the side to move has no legal move
+ * @param score              evaluation in centipawns for the side to move; see {@link Search#isMateScore}
+ * @param depth              the deepest iteration that finished
+ * @param nodes              positions visited, including quiescence
+ * @param timeMillis         time spent searching
+ * @param principalVariation the expected line of play, starting with bestMove
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long timeMillis,
+                           List<ChessMove> principalVariation) {
+
+    /**
+     * @return positions visited per second
+     */
+    public long nodesPerSecond() {
+        return nodes * 1000 / Math.max(1, timeMillis);
+    }
+}
@@ -0,0 +1,189 @@
+package engine;
+
+import chess.Castling;
+import chess.ChessBoard;
+import chess.ChessGame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only endgame tablebases, memory-mapped from a file written by
+ * {@link TablebaseGenerator}.
+ * <p>
+ * Each table holds one byte per position of an endgame with at most
+ * {@link #MAX_PIECES} pieces, keeping one of each set of positions that are
+ * the same up to mirroring or turning the board: a win for the side to move is the number of
+ * plies to mate, a loss is minus one more than the plies until it is mated,
+ * and a draw is 0. A probe is one read from the mapped file, so the tables
+ * take no heap and only the pages that are used are read from disk. Probes
+ * are safe from any thread.
+ * <p>
+ * The file is a 16-byte header (magic, version, table count, unused), one
+ * 24-byte directory entry per table (name padded to 8 bytes, offset,
+ * length), then the tables.
+ */
+public class Tablebase {
+
+    public static final int MAX_PIECES = Endgame.MAX_PIECES;
+
+    /**
+     * Probe result for a position with no table
+     */
+    public static final int MISS = Integer.MIN_VALUE;
+    public static final int DRAW = 0;
+
+    /**
+     * The longest distance to mate, in plies, a table can hold
+     */
+    public static final int MAX_DISTANCE = 126;
+
+    static final int MAGIC = 0x43485442;
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 24;
+    static final int NAME_BYTES = 8;
+    static final byte ILLEGAL = Byte.MIN_VALUE;
+
+    /**
+     * Looks up values by table name and stored entry, for probing tables that
+     * are still in memory while they are generated
+     */
+    interface Tables {
+        /**
+         * @return the stored byte, or MISS if there is no such table
+         */
+        int value(String name, int index);
+    }
+
+    private final Map<String, MappedByteBuffer> tables;
+
+    private Tablebase(Map<String, MappedByteBuffer> tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Maps a tablebase file into memory
+     *
+     * @throws IOException if the file cannot be read or is not a tablebase
+     */
+    public static Tablebase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+            channel.read(header, 0);
+            if (header.position() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a tablebase: " + path);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported tablebase version " + header.getInt(4) + ": " + path);
+            }
+
+            int count = header.getInt(8);
+            ByteBuffer directory = ByteBuffer.allocate(count * ENTRY_BYTES).order(ByteOrder.BIG_ENDIAN);
+            channel.read(directory, HEADER_BYTES);
+            if (directory.hasRemaining()) {
+                throw new IOException("Tablebase is truncated: " + path);
+            }
+
+            Map<String, MappedByteBuffer> tables = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                int entry = i * ENTRY_BYTES;
+                byte[] name = new byte[NAME_BYTES];
+                directory.get(entry, name);
+                String table = new String(name, StandardCharsets.US_ASCII).trim();
+                long offset = directory.getLong(entry + NAME_BYTES);
+                long length = directory.getLong(entry + NAME_BYTES + 8);
+                if (length != Endgame.of(table).tableSize || offset + length > channel.size()) {
+                    throw new IOException("Tablebase is truncated: " + path);
+                }
+                tables.put(table, channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+            }
+            return new Tablebase(tables);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown table in tablebase: " + path, e);
+        }
+    }
+
+    /**
+     * @return the names of the tables in the file, such as {@code KRK}
+     */
+    public Set<String> names() {
+        return Set.copyOf(tables.keySet());
+    }
+
+    /**
+     * @return the value of the game's position for the side to move, or MISS
+     * if it has no table or castling or en passant is possible, which the
+     * tables leave out
+     */
+    public int probe(ChessGame game) {
+        if (game.getCastlingRights() != Castling.NONE || game.getEnPassantFile() != 0) {
+            return MISS;
+        }
+        return probe(game.getBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * @return the value of a position for the side to move, or MISS if it has no table
+     */
+    public int probe(ChessBoard board, ChessGame.TeamColor toMove) {
+        return probe(board, toMove, (name, index) -> {
+            MappedByteBuffer table = tables.get(name);
+            return table == null ? MISS : table.get(index);
+        });
+    }
+
+    static int probe(ChessBoard board, ChessGame.TeamColor toMove, Tables tables) {
+        if (Long.bitCount(board.getOccupied()) > MAX_PIECES) {
+            return MISS;
+        }
+        String white = Endgame.side(board, ChessGame.TeamColor.WHITE);
+        String black = Endgame.side(board, ChessGame.TeamColor.BLACK);
+        if (!white.startsWith("K") || !black.startsWith("K")) {
+            return MISS;
+        }
+        boolean flipped = Endgame.isStronger(black, white);
+        String name = flipped ? black + white : white + black;
+        if (Endgame.isDrawn(name)) {
+            return DRAW;
+        }
+
+        Endgame endgame = Endgame.of(name);
+        int entry = endgame.tableIndex(endgame.index(board, toMove, flipped));
+        if (entry < 0) {
+            return MISS;
+        }
+        int value = tables.value(name, entry);
+        return value == ILLEGAL ? MISS : value;
+    }
+
+    /**
+     * @return True if a probe result is a forced mate for the side to move
+     */
+    public static boolean isWin(int value) {
+        return value != MISS && value > 0;
+    }
+
+    /**
+     * @return True if a probe result is a forced mate against the side to move
+     */
+    public static boolean isLoss(int value) {
+        return value != MISS && value < 0;
+    }
+
+    /**
+     * @return the number of plies until mate for a win or loss
+     */
+    public static int distanceToMate(int value) {
+        return value > 0 ? value : -value - 1;
+    }
+}
@@ -0,0 +1,497 @@
+package engine;
+
+import chess.AttackTables;
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds endgame tablebases by retrograde analysis.
+ * <p>
+ * A first pass over every index finds the legal positions, marks checkmates
+ * and stalemates, counts each position's moves that stay in the table, and
+ * scores the captures and promotions that leave it by probing the smaller
+ * tables, which are generated first. Then each round walks backwards from the
+ * positions resolved in the round before: a position with a move into a lost
+ * position is won one ply later, and a position whose last unresolved move
+ * leads into a won position is lost one ply later. Positions still unresolved
+ * when a round changes nothing are draws.
+ * <p>
+ * Every pass splits the index range across worker threads. Moves are found
+ * with {@link MoveGenerator}; backward moves use the same attack tables.
+ * Generation works over every index, and the finished table is then folded
+ * by symmetry into the smaller form that is stored and probed.
+ * <p>
+ * Run with {@code <tablebase file> <endgame>... [--threads n]}, for example
+ * {@code tb.bin KQK KRK KPK KBNK}.
+ */
+public class TablebaseGenerator {
+
+    private static final byte UNKNOWN = Byte.MAX_VALUE;
+    private static final byte CONVERSION_DRAW = -1;
+    private static final int CHUNKS_PER_THREAD = 16;
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final int threads;
+    private final Map<String, byte[]> tables = new TreeMap<>();
+
+    /**
+     * @param threads the number of worker threads to generate with
+     */
+    public TablebaseGenerator(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Generates an endgame's table, along with any smaller tables its captures
+     * and promotions lead into
+     *
+     * @param name the endgame, such as {@code KRK}; the stronger side comes first
+     * @throws IllegalArgumentException if the name is not an endgame of at most
+     *                                  {@link Tablebase#MAX_PIECES} pieces with mating material
+     */
+    public void generate(String name) {
+        if (tables.containsKey(name)) {
+            return;
+        }
+        Endgame endgame = Endgame.of(name);
+        for (String child : conversions(name)) {
+            if (!Endgame.isDrawn(child)) {
+                generate(child);
+            }
+        }
+        tables.put(name, build(endgame));
+    }
+
+    /**
+     * @return the names of the generated tables
+     */
+    public Set<String> names() {
+        return Set.copyOf(tables.keySet());
+    }
+
+    /**
+     * @return the value of a position, as {@link Tablebase#probe} would return
+     * it from a written file
+     */
+    public int probe(ChessBoard board, ChessGame.TeamColor toMove) {
+        return Tablebase.probe(board, toMove, this::value);
+    }
+
+    private int value(String name, int index) {
+        byte[] table = tables.get(name);
+        return table == null ? Tablebase.MISS : table[index];
+    }
+
+    /**
+     * Writes every generated table to one file that {@link Tablebase#open} can map
+     */
+    public void write(Path path) throws IOException {
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeInt(Tablebase.VERSION);
+            out.writeInt(tables.size());
+            out.writeInt(0);
+
+            long offset = Tablebase.HEADER_BYTES + (long) tables.size() * Tablebase.ENTRY_BYTES;
+            for (var entry : tables.entrySet()) {
+                out.write(Arrays.copyOf(entry.getKey().getBytes(StandardCharsets.US_ASCII), Tablebase.NAME_BYTES));
+                out.writeLong(offset);
+                out.writeLong(entry.getValue().length);
+                offset += entry.getValue().length;
+            }
+            for (byte[] table : tables.values()) {
+                out.write(table);
+            }
+        }
+    }
+
+    /**
+     * @return the endgames reached by capturing any one piece or promoting a pawn
+     */
+    private static Set<String> conversions(String name) {
+        int split = name.indexOf('K', 1);
+        String strong = name.substring(0, split);
+        String weak = name.substring(split);
+        Set<String> children = new TreeSet<>();
+        for (int i = 1; i < name.length(); i++) {
+            if (i == split) {
+                continue;
+            }
+            String rest = name.substring(0, i) + name.substring(i + 1);
+            int restSplit = i < split ? split - 1 : split;
+            children.add(Endgame.canonical(Endgame.side(rest.substring(0, restSplit)),
+                    Endgame.side(rest.substring(restSplit))));
+            if (name.charAt(i) == 'P') {
+                for (char promotion : "QRBN".toCharArray()) {
+                    String side = i < split ? strong : weak;
+                    int at = i < split ? i : i - split;
+                    String promoted = Endgame.side(side.substring(0, at) + promotion + side.substring(at + 1));
+                    children.add(i < split ? Endgame.canonical(promoted, weak) : Endgame.canonical(strong, promoted));
+                }
+            }
+        }
+        return children;
+    }
+
+    private byte[] build(Endgame endgame) {
+        Tables work = new Tables(endgame);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            int longestConversion = (int) forEachChunk(pool, endgame.size, (from, to) -> {
+                Initializer initializer = new Initializer(work);
+                int longest = 0;
+                for (int index = from; index < to; index++) {
+                    longest = Math.max(longest, initializer.initialize(index));
+                }
+                return longest;
+            }, Math::max);
+
+            for (int level = 1; ; level++) {
+                if (level > Tablebase.MAX_DISTANCE) {
+                    throw new IllegalStateException(endgame.name + " has mates longer than "
+                            + Tablebase.MAX_DISTANCE + " plies");
+                }
+                int previous = level - 1;
+                int current = level;
+                long resolved = forEachChunk(pool, endgame.size,
+                        (from, to) -> work.retreat(from, to, previous, current), Long::sum);
+                resolved += forEachChunk(pool, endgame.size,
+                        (from, to) -> work.resolveConversions(from, to, current), Long::sum);
+                if (resolved == 0 && level > longestConversion) {
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        byte[] values = work.values;
+        byte[] table = new byte[endgame.tableSize];
+        for (int index = 0; index < values.length; index++) {
+            int entry = endgame.tableIndex(index);
+            if (entry >= 0) {
+                table[entry] = values[index] == UNKNOWN ? Tablebase.DRAW : values[index];
+            }
+        }
+        return table;
+    }
+
+    private interface Chunk {
+        long run(int from, int to);
+    }
+
+    private interface Combiner {
+        long combine(long a, long b);
+    }
+
+    private long forEachChunk(ExecutorService pool, int size, Chunk chunk, Combiner combiner) {
+        int chunks = threads * CHUNKS_PER_THREAD;
+        int step = (size + chunks - 1) / chunks;
+        List<Future<Long>> futures = new ArrayList<>(chunks);
+        for (int from = 0; from < size; from += step) {
+            int start = from;
+            int end = Math.min(size, from + step);
+            futures.add(pool.submit(() -> chunk.run(start, end)));
+        }
+        try {
+            long result = 0;
+            for (Future<Long> future : futures) {
+                result = combiner.combine(result, future.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tablebase generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tablebase worker failed", e.getCause());
+        }
+    }
+
+    /**
+     * The working arrays for one table, indexed like the table itself
+     */
+    private static final class Tables {
+        final Endgame endgame;
+        final byte[] values;
+        /* moves that stay in the table and have not been found to lose; ints,
+         * since they are decremented atomically */
+        final int[] remaining;
+        /* plies to the fastest mate reached by a capture or promotion, or 0 */
+        final byte[] conversionWin;
+        /* plies to the slowest mate against the side to move after a capture or
+         * promotion, 0 if there is none, or CONVERSION_DRAW if one draws */
+        final byte[] conversionLoss;
+
+        Tables(Endgame endgame) {
+            this.endgame = endgame;
+            this.values = new byte[endgame.size];
+            this.remaining = new int[endgame.size];
+            this.conversionWin = new byte[endgame.size];
+            this.conversionLoss = new byte[endgame.size];
+        }
+
+        /**
+         * Walks back from the positions resolved at the previous level
+         */
+        long retreat(int from, int to, int previous, int level) {
+            byte lostCode = (byte) -(previous + 1);
+            long resolved = 0;
+            for (int index = from; index < to; index++) {
+                byte value = values[index];
+                boolean lost = value == lostCode;
+                if (lost || (previous > 0 && value == previous)) {
+                    resolved += retreat(index, lost, level);
+                }
+            }
+            return resolved;
+        }
+
+        private long retreat(int index, boolean lost, int level) {
+            int count = endgame.pieces.length;
+            long occupied = 0;
+            for (int slot = 0; slot < count; slot++) {
+                occupied |= Bitboards.bit(endgame.square(index, slot));
+            }
+            ChessGame.TeamColor mover = endgame.sideToMove(index) == 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            int moved = endgame.withOtherSideToMove(index);
+
+            long resolved = 0;
+            for (int slot = 0; slot < count; slot++) {
+                ChessPiece piece = endgame.pieces[slot];
+                if (piece.getTeamColor() != mover) {
+                    continue;
+                }
+                int square = endgame.square(index, slot);
+                long origins = origins(piece, square, occupied) & ~occupied;
+                while (origins != 0) {
+                    int origin = Long.numberOfTrailingZeros(origins);
+                    origins &= origins - 1;
+                    int predecessor = endgame.withSquare(moved, slot, origin);
+                    if (values[predecessor] != UNKNOWN) {
+                        continue;
+                    }
+                    if (lost) {
+                        if (BYTES.compareAndSet(values, predecessor, UNKNOWN, (byte) level)) {
+                            resolved++;
+                        }
+                    } else if ((int) INTS.getAndAdd(remaining, predecessor, -1) == 1
+                            && conversionWin[predecessor] == 0 && conversionLoss[predecessor] <= level
+                            && conversionLoss[predecessor] != CONVERSION_DRAW
+                            && BYTES.compareAndSet(values, predecessor, UNKNOWN, (byte) -(level + 1))) {
+                        resolved++;
+                    }
+                }
+            }
+            return resolved;
+        }
+
+        /**
+         * Resolves positions whose result at this level comes from leaving the
+         * table: a capture or promotion that wins, or a loss that was waiting on
+         * a longer mate after a capture or promotion
+         */
+        long resolveConversions(int from, int to, int level) {
+            long resolved = 0;
+            for (int index = from; index < to; index++) {
+                if (values[index] != UNKNOWN) {
+                    continue;
+                }
+                if (conversionWin[index] == level) {
+                    values[index] = (byte) level;
+                    resolved++;
+                } else if (conversionWin[index] == 0 && remaining[index] == 0 && conversionLoss[index] == level) {
+                    values[index] = (byte) -(level + 1);
+                    resolved++;
+                }
+            }
+            return resolved;
+        }
+
+        /**
+         * @return the squares a piece now on {@code square} could have moved
+         * from, before checking that they are empty
+         */
+        private static long origins(ChessPiece piece, int square, long occupied) {
+            return switch (piece.getPieceType()) {
+                case KING -> AttackTables.kingAttacks(square);
+                case QUEEN -> AttackTables.queenAttacks(square, occupied);
+                case ROOK -> AttackTables.rookAttacks(square, occupied);
+                case BISHOP -> AttackTables.bishopAttacks(square, occupied);
+                case KNIGHT -> AttackTables.knightAttacks(square);
+                case PAWN -> pawnOrigins(piece.getTeamColor(), square, occupied);
+            };
+        }
+
+        private static long pawnOrigins(ChessGame.TeamColor color, int square, long occupied) {
+            boolean white = color == ChessGame.TeamColor.WHITE;
+            int row = Bitboards.row(square);
+            if (row == (white ? 2 : 7)) {
+                return 0;
+            }
+            int back = white ? square - 8 : square + 8;
+            long origins = Bitboards.bit(back);
+            if (row == (white ? 4 : 5) && (occupied & Bitboards.bit(back)) == 0) {
+                origins |= Bitboards.bit(white ? back - 8 : back + 8);
+            }
+            return origins;
+        }
+    }
+
+    /**
+     * Sets up positions on one reusable board for the first pass
+     */
+    private final class Initializer {
+        private final Tables work;
+        private final Endgame endgame;
+        private final ChessBoard board = new ChessBoard();
+        private final MoveList moves = new MoveList();
+
+        Initializer(Tables work) {
+            this.work = work;
+            this.endgame = work.endgame;
+        }
+
+        /**
+         * @return the longest mate, in plies, reached by leaving the table from this position
+         */
+        int initialize(int index) {
+            int count = endgame.pieces.length;
+            long occupied = 0;
+            for (int slot = 0; slot < count; slot++) {
+                int square = endgame.square(index, slot);
+                int row = Bitboards.row(square);
+                if ((occupied & Bitboards.bit(square)) != 0
+                        || (endgame.pieces[slot].getPieceType() == ChessPiece.PieceType.PAWN && (row == 1 || row == 8))) {
+                    work.values[index] = Tablebase.ILLEGAL;
+                    return 0;
+                }
+                occupied |= Bitboards.bit(square);
+            }
+
+            for (int slot = 0; slot < count; slot++) {
+                board.setPiece(endgame.square(index, slot), endgame.pieces[slot]);
+            }
+            try {
+                return initialize(index, endgame.sideToMove(index) == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK);
+            } finally {
+                for (int slot = 0; slot < count; slot++) {
+                    board.setPiece(endgame.square(index, slot), null);
+                }
+            }
+        }
+
+        private int initialize(int index, ChessGame.TeamColor toMove) {
+            int enemyKing = board.getKingSquare(toMove.opponent());
+            if (board.attackersTo(enemyKing, toMove, board.getOccupied()) != 0) {
+                work.values[index] = Tablebase.ILLEGAL;
+                return 0;
+            }
+
+            MoveGenerator generator = new MoveGenerator(board, toMove);
+            moves.clear();
+            generator.generate(moves);
+            if (moves.isEmpty()) {
+                work.values[index] = generator.isInCheck() ? (byte) -1 : Tablebase.DRAW;
+                return 0;
+            }
+
+            int remaining = 0;
+            int win = 0;
+            int loss = 0;
+            boolean draw = false;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                    remaining++;
+                    continue;
+                }
+                int value = conversion(move, toMove);
+                if (value == Tablebase.DRAW) {
+                    draw = true;
+                } else if (value < 0) {
+                    int plies = Tablebase.distanceToMate(value) + 1;
+                    win = win == 0 ? plies : Math.min(win, plies);
+                } else {
+                    loss = Math.max(loss, Tablebase.distanceToMate(value) + 1);
+                }
+            }
+            work.values[index] = UNKNOWN;
+            work.remaining[index] = remaining;
+            work.conversionWin[index] = (byte) win;
+            work.conversionLoss[index] = draw ? CONVERSION_DRAW : (byte) loss;
+            return Math.max(win, loss);
+        }
+
+        /**
+         * @return the value, for the opponent, of the position after a move that leaves the table
+         */
+        private int conversion(int move, ChessGame.TeamColor toMove) {
+            int from = Move.from(move);
+            int to = Move.to(move);
+            ChessPiece piece = board.getPiece(from);
+            ChessPiece captured = board.getPiece(to);
+            board.setPiece(from, null);
+            board.setPiece(to, Move.isPromotion(move) ? ChessPiece.of(toMove, Move.promotion(move)) : piece);
+            int value = probe(board, toMove.opponent());
+            board.setPiece(to, captured);
+            board.setPiece(from, piece);
+            if (value == Tablebase.MISS) {
+                throw new IllegalStateException("Missing table after " + Move.toString(move) + " in " + endgame.name);
+            }
+            return value;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                rest.add(args[i]);
+            }
+        }
+        if (rest.size() < 2) {
+            System.err.println("Usage: TablebaseGenerator <tablebase file> <endgame>... [--threads n]");
+            System.exit(2);
+        }
+
+        TablebaseGenerator generator = new TablebaseGenerator(threads);
+        for (String name : rest.subList(1, rest.size())) {
+            long start = System.nanoTime();
+            generator.generate(name);
+            System.out.printf("%s: %.1fs%n", name, (System.nanoTime() - start) / 1e9);
+        }
+        generator.write(Path.of(rest.get(0)));
+        System.out.println("Wrote " + generator.names() + " to " + rest.get(0));
+    }
+}
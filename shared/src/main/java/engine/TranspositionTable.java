@@ -0,0 +1,210 @@
+package engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * A fixed-size hash table of search results, shared safely between threads
+ * without locks.
+ * <p>
+ * Entries live in a single {@code long[]}, two longs each: the position's
+ * Zobrist key XORed with the packed data, then the data itself. A reader
+ * recomputes the key from both halves, so an entry torn by two threads
+ * writing at once simply fails to match instead of returning another
+ * position's data. Entries are grouped into buckets of four (one 64-byte
+ * cache line); a new result replaces the entry for the same position if
+ * there is one, otherwise the bucket's least valuable entry, where older
+ * and shallower entries are worth less.
+ * <p>
+ * An entry's age is the generation it was stored in, and generations move on
+ * with time, once every GENERATION_MILLIS, rather than once per search. Many
+ * games search the one table at the same time, so counting searches would
+ * make a running search's entries look old as soon as another game started
+ * thinking. The age is 14 bits, so it only wraps around after several hours.
+ * <p>
+ * Packed data layout: bits 0-19 move, 20-39 score (offset to be positive),
+ * 40-47 depth, 48-49 bound, 50-63 age.
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    /**
+     * Returned by probe when the position is not in the table
+     */
+    public static final long MISS = 0;
+
+    private static final int BUCKET_SIZE = 4;
+    private static final int ENTRY_LONGS = 2;
+    private static final int BYTES_PER_ENTRY = ENTRY_LONGS * Long.BYTES;
+    private static final int SCORE_OFFSET = 1 << 19;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * How long one generation of entries lasts
+     */
+    public static final long GENERATION_MILLIS = 1000;
+    private static final int AGE_MASK = 0x3FFF;
+
+    private final long[] slots;
+    private final int bucketMask;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private volatile int age;
+
+    /**
+     * Creates a table using at most the given memory, rounded down to a power of two
+     *
+     * @param megabytes memory budget, at least 1
+     */
+    public TranspositionTable(int megabytes) {
+        this(megabytes, System::nanoTime);
+    }
+
+    /**
+     * Creates a table whose generations are timed by the given clock
+     *
+     * @param nanoClock the time in nanoseconds, like System.nanoTime
+     */
+    TranspositionTable(int megabytes, LongSupplier nanoClock) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Transposition table needs at least 1 MB");
+        }
+        long entries = Long.highestOneBit((long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY);
+        long buckets = Math.min(entries / BUCKET_SIZE, 1L << 26);
+        this.slots = new long[(int) (buckets * BUCKET_SIZE * ENTRY_LONGS)];
+        this.bucketMask = (int) buckets - 1;
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @param key the position's Zobrist key
+     * @return the packed entry, or MISS; read it with the static accessors
+     */
+    public long probe(long key) {
+        int base = bucket(key);
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            int slot = base + i * ENTRY_LONGS;
+            long data = (long) SLOTS.getOpaque(slots, slot + 1);
+            if (((long) SLOTS.getOpaque(slots, slot) ^ data) == key && data != MISS) {
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Records a search result for a position
+     *
+     * @param key   the position's Zobrist key
+     * @param move  the best move found, or Move.NONE
+     * @param score the score, relative to the side to move
+     * @param depth the remaining depth the score was searched to
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param ply   distance from the root, used to store mate scores relative to this position
+     */
+    public void store(long key, int move, int score, int depth, int bound, int ply) {
+        int base = bucket(key);
+        int currentAge = age;
+        int replace = base;
+        int lowestWorth = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            int slot = base + i * ENTRY_LONGS;
+            long data = (long) SLOTS.getOpaque(slots, slot + 1);
+            if (((long) SLOTS.getOpaque(slots, slot) ^ data) == key || data == MISS) {
+                if (data != MISS && move == 0) {
+                    move = move(data);
+                }
+                replace = slot;
+                break;
+            }
+            int worth = depth(data) - 8 * ((currentAge - age(data)) & AGE_MASK);
+            if (worth < lowestWorth) {
+                lowestWorth = worth;
+                replace = slot;
+            }
+        }
+
+        long data = (move & 0xFFFFFL)
+                | ((long) (toTableScore(score, ply) + SCORE_OFFSET) << 20)
+                | ((long) Math.min(Math.max(depth, 0), 255) << 40)
+                | ((long) bound << 48)
+                | ((long) currentAge << 50);
+        SLOTS.setOpaque(slots, replace, key ^ data);
+        SLOTS.setOpaque(slots, replace + 1, data);
+    }
+
+    /**
+     * Marks the start of a search, moving the table on to the current
+     * generation so entries from earlier generations are replaced first.
+     * Searches started within the same generation share an age.
+     */
+    public void newSearch() {
+        long generation = (nanoClock.getAsLong() - startNanos) / (GENERATION_MILLIS * 1_000_000);
+        age = (int) generation & AGE_MASK;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0);
+    }
+
+    /**
+     * @return the memory used by the entries, in bytes
+     */
+    public long sizeInBytes() {
+        return (long) slots.length * Long.BYTES;
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFFF);
+    }
+
+    /**
+     * @return the stored score, with mate scores adjusted to be relative to the root
+     */
+    public static int score(long entry, int ply) {
+        return fromTableScore((int) ((entry >>> 20) & 0xFFFFF) - SCORE_OFFSET, ply);
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> 40) & 0xFF);
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> 48) & 0x3);
+    }
+
+    private static int age(long entry) {
+        return (int) ((entry >>> 50) & AGE_MASK);
+    }
+
+    private int bucket(long key) {
+        return (int) (key & bucketMask) * BUCKET_SIZE * ENTRY_LONGS;
+    }
+
+    /*
+     * Mate scores count plies from the root, but a stored position can be
+     * reached at other distances, so they are stored counting from the
+     * position itself
+     */
+    private static int toTableScore(int score, int ply) {
+        if (Search.isMateScore(score)) {
+            return score > 0 ? score + ply : score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTableScore(int score, int ply) {
+        if (Search.isMateScore(score)) {
+            return score > 0 ? score - ply : score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,31 @@
+package model;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * Engine analysis of a game's current position. Accuracy is given for every
+ * legal move there, as candidates, and not for the moves already played.
+ *
+ * @param gameID the analyzed game
+ * @param depth  the search depth in plies
+ * @param score  the evaluation in centipawns for the side to move
+ * @param mateIn moves until mate for the side to move (negative when being mated), or null
+ * @param line   the best line, starting with the best move
+ * @param moves  every legal move, best first
+ */
+public record AnalysisData(int gameID, int depth, int score, Integer mateIn, List<ChessMove> line,
+                           List<MoveAnalysis> moves) {
+
+    /**
+     * One legal move's evaluation
+     *
+     * @param move     the move
+     * @param score    the evaluation after the move, in centipawns for the side that played it
+     * @param loss     centipawns lost compared to the best move
+     * @param accuracy how close the move comes to the best, from 0 to 100
+     */
+    public record MoveAnalysis(ChessMove move, int score, int loss, double accuracy) {
+    }
+}
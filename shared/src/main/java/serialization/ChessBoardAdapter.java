@@ -0,0 +1,81 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.Fen;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes boards as the piece placement field of a FEN string, such
+ * as {@code "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR"}, see {@link Fen}.
+ * <p>
+ * Boards written as Gson's reflective {@code {"squares":[[...]]}} object are
+ * still read, so stored games from before the compact form load as before.
+ */
+public class ChessBoardAdapter extends TypeAdapter<ChessBoard> {
+
+    private final ChessPieceAdapter pieces = new ChessPieceAdapter();
+
+    @Override
+    public void write(JsonWriter out, ChessBoard board) throws IOException {
+        if (board == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(Fen.placement(board));
+    }
+
+    @Override
+    public ChessBoard read(JsonReader in) throws IOException {
+        return switch (in.peek()) {
+            case NULL -> {
+                in.nextNull();
+                yield null;
+            }
+            case STRING -> parse(in.nextString(), in);
+            default -> readSquares(in);
+        };
+    }
+
+    private static ChessBoard parse(String placement, JsonReader in) {
+        try {
+            return Fen.parsePlacement(placement);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(e.getMessage() + " at " + in.getPath(), e);
+        }
+    }
+
+    /**
+     * Reads the reflective form, an object holding the 8x8 squares array with
+     * row 1 first
+     */
+    private ChessBoard readSquares(JsonReader in) throws IOException {
+        ChessBoard board = new ChessBoard();
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals("squares")) {
+                in.skipValue();
+                continue;
+            }
+            in.beginArray();
+            for (int row = 0; in.hasNext(); row++) {
+                in.beginArray();
+                for (int col = 0; in.hasNext(); col++) {
+                    ChessPiece piece = pieces.read(in);
+                    if (piece != null) {
+                        board.setPiece(row * 8 + col, piece);
+                    }
+                }
+                in.endArray();
+            }
+            in.endArray();
+        }
+        in.endObject();
+        return board;
+    }
+}
@@ -0,0 +1,135 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.Fen;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads and writes games as
+ * {@code {"fen":"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"}},
+ * see {@link Fen}, followed by the keys of the positions that can still
+ * repeat when there are any.
+ * <p>
+ * Games written with the board and the rest of the position as separate
+ * fields, including by Gson's reflection, are still read. Their castling
+ * rights are worked out from the board when missing, as for a game whose
+ * history is not known.
+ */
+public class ChessGameAdapter extends TypeAdapter<ChessGame> {
+
+    /* the size of the ring of position keys in games written by reflection */
+    private static final int LEGACY_KEY_RING = 128;
+
+    private final ChessBoardAdapter boards = new ChessBoardAdapter();
+
+    @Override
+    public void write(JsonWriter out, ChessGame game) throws IOException {
+        if (game == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("fen").value(game.toFen());
+        long[] history = game.getPositionHistory();
+        if (history.length > 0) {
+            out.name("history").beginArray();
+            for (long key : history) {
+                out.value(key);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+
+    @Override
+    public ChessGame read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String fen = null;
+        ChessBoard board = null;
+        ChessGame.TeamColor turn = ChessGame.TeamColor.WHITE;
+        Integer castlingRights = null;
+        int enPassantFile = 0;
+        int halfmoveClock = 0;
+        long[] history = new long[0];
+        int positionCount = -1;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "fen" -> fen = in.nextString();
+                case "board" -> board = boards.read(in);
+                case "teamTurn" -> turn = ChessGame.TeamColor.valueOf(in.nextString());
+                case "castlingRights" -> castlingRights = in.nextInt();
+                case "enPassantFile" -> enPassantFile = in.nextInt();
+                case "halfmoveClock" -> halfmoveClock = in.nextInt();
+                case "history", "positionKeys" -> history = readKeys(in);
+                case "positionCount" -> positionCount = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        try {
+            ChessGame game;
+            if (fen != null) {
+                game = ChessGame.fromFen(fen);
+            } else if (board != null) {
+                game = new ChessGame(board, turn);
+                if (castlingRights != null) {
+                    game.setCastlingRights(castlingRights);
+                }
+                game.setEnPassantFile(enPassantFile);
+                game.setHalfmoveClock(halfmoveClock);
+            } else {
+                throw new JsonParseException("Game is missing its position at " + in.getPath());
+            }
+            if (positionCount >= 0) {
+                history = unwindRing(history, positionCount, game.getHalfmoveClock());
+            }
+            game.setPositionHistory(history);
+            return game;
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(e.getMessage() + " at " + in.getPath(), e);
+        }
+    }
+
+    private static long[] readKeys(JsonReader in) throws IOException {
+        long[] keys = new long[16];
+        int size = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = in.nextLong();
+        }
+        in.endArray();
+        return Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * Takes the positions that can still repeat, oldest first, out of the
+     * reflective form's ring of keys
+     */
+    private static long[] unwindRing(long[] ring, int count, int halfmoveClock) {
+        if (ring.length != LEGACY_KEY_RING) {
+            return new long[0];
+        }
+        int window = Math.min(halfmoveClock, Math.min(count, LEGACY_KEY_RING));
+        long[] keys = new long[window];
+        for (int i = 0; i < window; i++) {
+            keys[i] = ring[(count - window + i) & (LEGACY_KEY_RING - 1)];
+        }
+        return keys;
+    }
+}
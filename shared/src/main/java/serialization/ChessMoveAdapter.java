@@ -0,0 +1,71 @@
+package serialization;
+
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes moves as
+ * {@code {"start":{"row":7,"col":1},"end":{"row":8,"col":1},"promotionPiece":"QUEEN"}},
+ * the same JSON a plain Gson writes, leaving out the promotion piece when
+ * there is none
+ */
+public class ChessMoveAdapter extends TypeAdapter<ChessMove> {
+
+    private final ChessPositionAdapter positions = new ChessPositionAdapter();
+
+    @Override
+    public void write(JsonWriter out, ChessMove move) throws IOException {
+        if (move == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("start");
+        positions.write(out, move.getStartPosition());
+        out.name("end");
+        positions.write(out, move.getEndPosition());
+        if (move.getPromotionPiece() != null) {
+            out.name("promotionPiece").value(move.getPromotionPiece().name());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public ChessMove read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChessPosition start = null;
+        ChessPosition end = null;
+        ChessPiece.PieceType promotion = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "start" -> start = positions.read(in);
+                case "end" -> end = positions.read(in);
+                case "promotionPiece" -> {
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        promotion = ChessPiece.PieceType.valueOf(in.nextString());
+                    }
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (start == null || end == null) {
+            throw new JsonParseException("Move is missing its start or end at " + in.getPath());
+        }
+        return new ChessMove(start, end, promotion);
+    }
+}
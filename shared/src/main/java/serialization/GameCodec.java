@@ -0,0 +1,144 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A compact, versioned binary form of a game, for storage and binary
+ * WebSocket frames.
+ * <p>
+ * Version 2 is laid out as:
+ * <pre>
+ *  byte     version
+ *  32 bytes the board, 4 bits per square from a1 to h8, low nibble first:
+ *           0 for empty, otherwise 1 + team * 6 + piece type
+ *  byte     bit 0 set for black to move, bits 1 to 4 the castling rights
+ *  byte     en passant file, 0 for none
+ *  short    halfmove clock
+ *  int      fullmove number
+ *  byte     number of position keys that can still repeat, then that many longs
+ * </pre>
+ * so a game takes 42 bytes plus 8 for each position that can still repeat.
+ * Version 1 was the same except that the fullmove number was a short, which
+ * clamped the numbers a FEN may give; it can still be read.
+ * Games are read and written straight from a ByteBuffer, without building
+ * any strings on the way.
+ */
+public final class GameCodec {
+
+    public static final byte VERSION = 2;
+    private static final byte SHORT_FULLMOVE_VERSION = 1;
+
+    private static final int BOARD_BYTES = 32;
+    private static final int FIXED_BYTES = 1 + BOARD_BYTES + 1 + 1 + 2 + 4 + 1;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+
+    private GameCodec() {
+    }
+
+    /**
+     * @return the number of bytes write puts for a game
+     */
+    public static int size(ChessGame game) {
+        return FIXED_BYTES + Long.BYTES * game.getPositionHistory().length;
+    }
+
+    /**
+     * @return the game in the current binary form
+     */
+    public static byte[] encode(ChessGame game) {
+        long[] history = game.getPositionHistory();
+        ByteBuffer out = ByteBuffer.allocate(FIXED_BYTES + Long.BYTES * history.length);
+        write(game, history, out);
+        return out.array();
+    }
+
+    /**
+     * Reads a game written by encode
+     *
+     * @throws IllegalArgumentException if the bytes are not a game in a known version
+     */
+    public static ChessGame decode(byte[] bytes) {
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Puts a game at the buffer's position, which must have size(game) bytes remaining
+     */
+    public static void write(ChessGame game, ByteBuffer out) {
+        write(game, game.getPositionHistory(), out);
+    }
+
+    private static void write(ChessGame game, long[] history, ByteBuffer out) {
+        out.put(VERSION);
+        ChessBoard board = game.getBoard();
+        for (int square = 0; square < 64; square += 2) {
+            out.put((byte) (nibble(board.getPiece(square)) | nibble(board.getPiece(square + 1)) << 4));
+        }
+        int turn = game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0;
+        out.put((byte) (turn | game.getCastlingRights() << 1));
+        out.put((byte) game.getEnPassantFile());
+        out.putShort((short) Math.min(game.getHalfmoveClock(), Short.MAX_VALUE));
+        out.putInt(game.getFullmoveNumber());
+        out.put((byte) history.length);
+        for (long key : history) {
+            out.putLong(key);
+        }
+    }
+
+    /**
+     * Reads a game from the buffer's position, leaving the position just past it
+     *
+     * @throws IllegalArgumentException if the bytes are not a game in a known version
+     */
+    public static ChessGame read(ByteBuffer in) {
+        try {
+            byte version = in.get();
+            if (version != VERSION && version != SHORT_FULLMOVE_VERSION) {
+                throw new IllegalArgumentException("Unknown game encoding version " + version);
+            }
+            ChessBoard board = new ChessBoard();
+            for (int square = 0; square < 64; square += 2) {
+                int pair = in.get();
+                place(board, square, pair & 0xF);
+                place(board, square + 1, pair >>> 4 & 0xF);
+            }
+            int state = in.get();
+            ChessGame game = new ChessGame(board, (state & 1) == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK);
+            game.setCastlingRights(state >>> 1 & 0xF);
+            game.setEnPassantFile(in.get());
+            game.setHalfmoveClock(in.getShort());
+            game.setFullmoveNumber(version == SHORT_FULLMOVE_VERSION ? in.getShort() : in.getInt());
+            long[] history = new long[in.get() & 0xFF];
+            for (int i = 0; i < history.length; i++) {
+                history[i] = in.getLong();
+            }
+            game.setPositionHistory(history);
+            return game;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Game encoding is cut short", e);
+        }
+    }
+
+    private static int nibble(ChessPiece piece) {
+        if (piece == null) {
+            return 0;
+        }
+        return 1 + piece.getTeamColor().ordinal() * TYPES.length + piece.getPieceType().ordinal();
+    }
+
+    private static void place(ChessBoard board, int square, int nibble) {
+        if (nibble == 0) {
+            return;
+        }
+        if (nibble > COLORS.length * TYPES.length) {
+            throw new IllegalArgumentException("Bad piece code " + nibble + " in game encoding");
+        }
+        board.setPiece(square, ChessPiece.of(COLORS[(nibble - 1) / TYPES.length], TYPES[(nibble - 1) % TYPES.length]));
+    }
+}
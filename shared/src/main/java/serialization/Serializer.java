@@ -0,0 +1,38 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * The Gson instance shared by the client and server. Games and boards are
+ * written in a compact form, with the board as a FEN placement string rather
+ * than an array of every square, and everything is read back by hand-written
+ * streaming adapters instead of reflection. Moves, positions and pieces keep
+ * the JSON a plain Gson writes, but are read back as their shared instances
+ * instead of creating duplicates.
+ */
+public final class Serializer {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(ChessPosition.class, new ChessPositionAdapter())
+            .registerTypeAdapter(ChessPiece.class, new ChessPieceAdapter())
+            .registerTypeAdapter(ChessMove.class, new ChessMoveAdapter())
+            .registerTypeAdapter(ChessBoard.class, new ChessBoardAdapter())
+            .registerTypeAdapter(ChessGame.class, new ChessGameAdapter())
+            .create();
+
+    private Serializer() {
+    }
+
+    /**
+     * @return the shared Gson instance, which is safe to use from any thread
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+}
@@ -0,0 +1,217 @@
+package chess;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChessGameTest {
+
+    private ChessGame game;
+
+    @BeforeEach
+    void setUp() {
+        game = new ChessGame();
+    }
+
+    @Test
+    void unmakeMoveRestoresPosition() throws InvalidMoveException {
+        ChessGame start = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+        assertEquals(3, game.getUndoCount());
+
+        game.unmakeMove();
+        game.unmakeMove();
+        game.unmakeMove();
+
+        assertEquals(start, game);
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        assertEquals(0, game.getUndoCount());
+    }
+
+    @Test
+    void unmakeMoveRestoresCaptureAndPromotion() throws InvalidMoveException {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(7, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        game.setBoard(board);
+
+        game.makeMove(new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT));
+        assertEquals(ChessPiece.PieceType.KNIGHT, board.getPiece(new ChessPosition(8, 1)).getPieceType());
+
+        game.unmakeMove();
+        assertEquals(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK), board.getPiece(new ChessPosition(8, 1)));
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN), board.getPiece(new ChessPosition(7, 2)));
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    void zobristKeyMatchesForTranspositions() throws InvalidMoveException {
+        ChessGame other = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 2), new ChessPosition(6, 3), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        other.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        other.makeMove(new ChessMove(new ChessPosition(8, 2), new ChessPosition(6, 3), null));
+        other.makeMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null));
+
+        assertEquals(game.getZobristKey(), other.getZobristKey());
+        assertEquals(game, other);
+
+        other.setTeamTurn(ChessGame.TeamColor.WHITE);
+        assertNotEquals(game.getZobristKey(), other.getZobristKey());
+    }
+
+    @Test
+    void unmakeMoveRestoresZobristKey() throws InvalidMoveException {
+        long start = game.getZobristKey();
+        game.makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+        assertNotEquals(start, game.getZobristKey());
+        game.unmakeMove();
+        assertEquals(start, game.getZobristKey());
+    }
+
+    @Test
+    void castlingMovesTheRookAndUnmakeRestoresIt() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        ChessGame start = new ChessGame(game);
+
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 7), null));
+        assertEquals(ChessPiece.PieceType.ROOK, game.getBoard().getPiece(new ChessPosition(1, 6)).getPieceType());
+        assertNull(game.getBoard().getPiece(new ChessPosition(1, 8)));
+        assertEquals(Castling.BLACK_KINGSIDE | Castling.BLACK_QUEENSIDE, game.getCastlingRights());
+
+        game.unmakeMove();
+        assertEquals(start, game);
+        assertEquals(start.getZobristKey(), game.getZobristKey());
+    }
+
+    @Test
+    void capturingARookTakesAwayItsCastlingRight() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        long key = game.getZobristKey();
+        game.makeMove(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null));
+
+        assertEquals(Castling.WHITE_KINGSIDE | Castling.BLACK_KINGSIDE, game.getCastlingRights());
+        game.unmakeMove();
+        assertEquals(Castling.ALL, game.getCastlingRights());
+        assertEquals(key, game.getZobristKey());
+    }
+
+    @Test
+    void enPassantIsOnlyRecordedWhenItCanBePlayed() throws InvalidMoveException {
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        assertEquals(0, game.getEnPassantFile(), "no black pawn beside e4");
+        game.makeMove(new ChessMove(new ChessPosition(7, 1), new ChessPosition(6, 1), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 5), null));
+        long beforePush = game.getZobristKey();
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        assertEquals(4, game.getEnPassantFile());
+        long afterPush = game.getZobristKey();
+
+        game.makeMove(new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4), null));
+        assertNull(game.getBoard().getPiece(new ChessPosition(5, 4)), "the pawn taken en passant is removed");
+        assertEquals(0, game.getEnPassantFile());
+
+        game.unmakeMove();
+        assertEquals(ChessPiece.PieceType.PAWN, game.getBoard().getPiece(new ChessPosition(5, 4)).getPieceType());
+        assertEquals(afterPush, game.getZobristKey());
+        game.unmakeMove();
+        assertEquals(beforePush, game.getZobristKey());
+    }
+
+    @Test
+    void enPassantIsNotAllowedWhenItExposesTheKing() {
+        ChessGame game = ChessGame.fromFen("8/8/8/K2pP2r/8/8/8/7k w - d6 0 1");
+        assertFalse(game.validMoves(new ChessPosition(5, 5)).contains(
+                new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4), null)));
+    }
+
+    @Test
+    void threefoldRepetitionDrawsTheGame() throws InvalidMoveException {
+        for (int i = 0; i < 2; i++) {
+            assertFalse(game.isThreefoldRepetition());
+            game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+            game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+            game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+            assertNotEquals(GameStatus.Type.REPETITION, game.getStatus().type());
+            game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+            assertTrue(game.isRepetition());
+        }
+        assertTrue(game.isThreefoldRepetition());
+        assertEquals(new GameStatus(GameStatus.Type.REPETITION, ChessGame.TeamColor.WHITE), game.getStatus());
+        assertTrue(game.getStatus().isDraw());
+
+        game.unmakeMove();
+        assertFalse(game.isThreefoldRepetition());
+        assertFalse(game.getStatus().isGameOver());
+    }
+
+    @Test
+    void pawnMovesEndTheRepetitionWindow() throws InvalidMoveException {
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        assertEquals(2, game.getHalfmoveClock());
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(3, 5), null));
+        assertEquals(0, game.getHalfmoveClock());
+
+        game.unmakeMove();
+        assertEquals(2, game.getHalfmoveClock());
+    }
+
+    @Test
+    void fiftyMoveRuleDrawsTheGame() throws InvalidMoveException {
+        game.setHalfmoveClock(ChessGame.FIFTY_MOVE_PLIES - 1);
+        assertFalse(game.isFiftyMoveRule());
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+
+        assertTrue(game.isFiftyMoveRule());
+        assertEquals(new GameStatus(GameStatus.Type.FIFTY_MOVES, ChessGame.TeamColor.BLACK), game.getStatus());
+        assertTrue(game.getStatus().isGameOver());
+    }
+
+    @Test
+    void unmakeMoveWithoutHistoryThrows() {
+        assertThrows(IllegalStateException.class, () -> game.unmakeMove());
+    }
+
+    @Test
+    void statusReportsCheckmateAfterMove() throws InvalidMoveException {
+        assertEquals(new GameStatus(GameStatus.Type.ONGOING, ChessGame.TeamColor.WHITE), game.getStatus());
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+
+        assertEquals(new GameStatus(GameStatus.Type.CHECKMATE, ChessGame.TeamColor.WHITE), game.getStatus());
+        assertTrue(game.getStatus().isGameOver());
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        assertFalse(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void statusFollowsChangesMadeOutsideMakeMove() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertEquals(GameStatus.Type.ONGOING, game.getStatus().type());
+
+        board.addPiece(new ChessPosition(6, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        assertEquals(new GameStatus(GameStatus.Type.STALEMATE, ChessGame.TeamColor.BLACK), game.getStatus());
+
+        board.addPiece(new ChessPosition(6, 7), null);
+        board.addPiece(new ChessPosition(1, 8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        assertEquals(GameStatus.Type.CHECK, game.getStatus().type());
+        assertTrue(game.getStatus().isCheck());
+
+        game.setHalfmoveClock(ChessGame.FIFTY_MOVE_PLIES);
+        assertEquals(new GameStatus(GameStatus.Type.FIFTY_MOVES, ChessGame.TeamColor.BLACK), game.getStatus());
+    }
+}
@@ -0,0 +1,86 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FenTest {
+
+    @Test
+    void startingPosition() {
+        assertEquals(Fen.START, new ChessGame().toFen());
+        assertEquals(new ChessGame(), ChessGame.fromFen(Fen.START));
+    }
+
+    @Test
+    void roundTripsStandardPositions() {
+        for (Perft.Position position : Perft.STANDARD_POSITIONS) {
+            assertEquals(position.fen(), ChessGame.fromFen(position.fen()).toFen(), position.name());
+        }
+    }
+
+    @Test
+    void tracksMovesPlayed() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move("e2", "e4"));
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", game.toFen());
+        game.makeMove(move("g8", "f6"));
+        game.makeMove(move("e4", "e5"));
+        game.makeMove(move("d7", "d5"));
+        assertEquals("rnbqkb1r/ppp1pppp/5n2/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3", game.toFen());
+        game.makeMove(move("e1", "e2"));
+        assertEquals("rnbqkb1r/ppp1pppp/5n2/3pP3/8/8/PPPPKPPP/RNBQ1BNR b kq - 1 3", game.toFen());
+
+        assertEquals(game, ChessGame.fromFen(game.toFen()));
+        game.unmakeMove();
+        game.unmakeMove();
+        assertEquals("rnbqkb1r/pppppppp/5n2/4P3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2", game.toFen());
+    }
+
+    @Test
+    void keepsOnlyStateThePositionAllows() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3p4/8/8/8/4K2R w KQkq d6 3 40");
+
+        assertEquals(Castling.WHITE_KINGSIDE, game.getCastlingRights());
+        assertEquals(0, game.getEnPassantFile(), "no white pawn can take the d-pawn");
+        assertEquals(3, game.getHalfmoveClock());
+        assertEquals(40, game.getFullmoveNumber());
+        assertEquals("4k3/8/8/3p4/8/8/8/4K2R w K - 3 40", game.toFen());
+    }
+
+    @Test
+    void countersAreOptional() {
+        ChessGame game = ChessGame.fromFen("  8/8/8/8/8/8/8/K6k b -  - ");
+
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals("8/8/8/8/8/8/8/K6k b - - 0 1", game.toFen());
+    }
+
+    @Test
+    void rejectsMalformedPositions() {
+        String[] bad = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/ppppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQxq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e3 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - -1 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w",
+        };
+        for (String fen : bad) {
+            assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+
+    private static ChessMove move(String from, String to) {
+        return new ChessMove(square(from), square(to), null);
+    }
+
+    private static ChessPosition square(String name) {
+        return ChessPosition.of(name.charAt(1) - '0', name.charAt(0) - 'a' + 1);
+    }
+}
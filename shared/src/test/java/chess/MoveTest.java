@@ -0,0 +1,55 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveTest {
+
+    @Test
+    void packedMoveRoundTrips() {
+        ChessMove move = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2), ChessPiece.PieceType.KNIGHT);
+        int packed = Move.encode(move);
+        assertEquals(Bitboards.square(7, 1), Move.from(packed));
+        assertEquals(Bitboards.square(8, 2), Move.to(packed));
+        assertEquals(ChessPiece.PieceType.KNIGHT, Move.promotion(packed));
+        assertEquals(move, Move.toChessMove(packed));
+        assertEquals("a7b8n", Move.toString(packed));
+    }
+
+    @Test
+    void flagsDoNotChangeTheMove() {
+        int plain = Move.of(12, 28);
+        int capture = Move.of(12, 28, null, Move.CAPTURE);
+        assertTrue(Move.isCapture(capture));
+        assertFalse(Move.isCapture(plain));
+        assertEquals(plain, Move.withoutFlags(capture));
+        assertEquals(Move.toChessMove(plain), Move.toChessMove(capture));
+    }
+
+    @Test
+    void generatedMovesMatchLegalMoves() {
+        ChessGame game = ChessGame.fromFen(Perft.STANDARD_POSITIONS.get(2).fen());
+        MoveList moves = new MoveList();
+        game.generateMoves(moves);
+        assertEquals(new HashSet<>(game.legalMoves()), new HashSet<>(moves.toChessMoves()));
+        assertEquals(game.legalMoves().size(), moves.size());
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            boolean occupied = game.getBoard().getPiece(Move.to(move)) != null;
+            assertEquals(occupied, Move.isCapture(move), Move.toString(move));
+        }
+    }
+
+    @Test
+    void generateMovesClearsTheBuffer() {
+        ChessGame game = new ChessGame();
+        MoveList moves = new MoveList();
+        game.generateMoves(moves);
+        game.generateMoves(moves);
+        assertEquals(20, moves.size());
+    }
+}
@@ -0,0 +1,33 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerftTest {
+
+    @Test
+    void standardPositionsMatchKnownCounts() {
+        for (Perft.Position position : Perft.STANDARD_POSITIONS) {
+            int depth = Math.min(3, position.nodes().length);
+            assertEquals(position.nodes()[depth - 1], Perft.perft(ChessGame.fromFen(position.fen()), depth),
+                    position.name() + " at depth " + depth);
+        }
+    }
+
+    @Test
+    void perftLeavesGameUnchanged() {
+        ChessGame game = new ChessGame();
+        long key = game.getZobristKey();
+        Perft.perft(game, 3);
+        assertEquals(key, game.getZobristKey());
+        assertEquals(0, game.getUndoCount());
+        assertEquals(new ChessGame(), game);
+    }
+
+    @Test
+    void threadedPerftMatchesSingleThreaded() throws InterruptedException {
+        ChessGame game = ChessGame.fromFen(Perft.STANDARD_POSITIONS.get(2).fen());
+        assertEquals(Perft.perft(game, 3), Perft.perft(game, 3, 4));
+    }
+}
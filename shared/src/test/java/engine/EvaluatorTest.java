@@ -0,0 +1,98 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.MoveList;
+import chess.PieceSquareTables;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluatorTest {
+
+    @Test
+    void startingPositionIsEven() {
+        ChessGame game = new ChessGame();
+        assertEquals(0, Evaluator.evaluate(game));
+        assertEquals(PieceSquareTables.MAX_PHASE, game.getBoard().getPhase());
+    }
+
+    @Test
+    void scoreIsFromSideToMove() {
+        ChessGame game = new ChessGame();
+        game.getBoard().addPiece(ChessPosition.of(7, 4), null);
+        int whiteView = Evaluator.evaluate(game);
+        assertTrue(whiteView > 0);
+
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertEquals(-whiteView, Evaluator.evaluate(game));
+    }
+
+    @Test
+    void mirroredPositionsScoreTheSame() {
+        ChessBoard board = new ChessBoard();
+        ChessBoard mirrored = new ChessBoard();
+        place(board, mirrored, 1, 7, ChessPiece.PieceType.KING);
+        place(board, mirrored, 4, 4, ChessPiece.PieceType.KNIGHT);
+        place(board, mirrored, 5, 5, ChessPiece.PieceType.PAWN);
+        board.addPiece(ChessPosition.of(8, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        mirrored.addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+
+        ChessGame white = game(board, ChessGame.TeamColor.WHITE);
+        ChessGame black = game(mirrored, ChessGame.TeamColor.BLACK);
+        assertEquals(Evaluator.evaluate(white), Evaluator.evaluate(black));
+    }
+
+    @Test
+    void kingPrefersCenterInEndgame() {
+        ChessBoard center = new ChessBoard();
+        center.addPiece(ChessPosition.of(4, 4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        center.addPiece(ChessPosition.of(8, 8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        ChessBoard corner = new ChessBoard();
+        corner.addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        corner.addPiece(ChessPosition.of(8, 8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+
+        assertEquals(0, center.getPhase());
+        assertTrue(Evaluator.evaluate(game(center, ChessGame.TeamColor.WHITE))
+                > Evaluator.evaluate(game(corner, ChessGame.TeamColor.WHITE)));
+    }
+
+    @Test
+    void incrementalTotalsMatchRecomputedOnes() {
+        Random random = new Random(7);
+        ChessGame game = new ChessGame();
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 200; ply++) {
+            game.generateMoves(moves);
+            if (moves.isEmpty()) {
+                break;
+            }
+            game.playMove(moves.get(random.nextInt(moves.size())));
+
+            ChessBoard rebuilt = new ChessBoard(game.getBoard());
+            assertEquals(rebuilt.getMiddlegameScore(), game.getBoard().getMiddlegameScore());
+            assertEquals(rebuilt.getEndgameScore(), game.getBoard().getEndgameScore());
+            assertEquals(rebuilt.getPhase(), game.getBoard().getPhase());
+        }
+        while (game.getUndoCount() > 0) {
+            game.unmakeMove();
+        }
+        assertEquals(0, Evaluator.evaluate(game));
+    }
+
+    private static void place(ChessBoard board, ChessBoard mirrored, int row, int col, ChessPiece.PieceType type) {
+        board.addPiece(ChessPosition.of(row, col), ChessPiece.of(ChessGame.TeamColor.WHITE, type));
+        mirrored.addPiece(ChessPosition.of(9 - row, col), ChessPiece.of(ChessGame.TeamColor.BLACK, type));
+    }
+
+    private static ChessGame game(ChessBoard board, ChessGame.TeamColor turn) {
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        return game;
+    }
+}
@@ -0,0 +1,137 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.San;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningBookTest {
+
+    private static final String PGN = """
+            [Event "One"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 {main line} Nc6 3. Bb5 a6 1-0
+
+            [Event "Two"]
+            [Result "0-1"]
+
+            1. e4 c5 (1... e5 2. Nf3) 2. Nf3 d6 $1 0-1
+
+            [Event "Three"]
+            [Result "1/2-1/2"]
+
+            1. d4 d5 2. c4 1/2-1/2
+            """;
+
+    @Test
+    void lookupReturnsWeightedBookMoves() throws IOException {
+        OpeningBook book = build(PGN, OpeningBookBuilder.DEFAULT_MAX_PLY);
+        assertEquals(12, book.size());
+
+        List<OpeningBook.Entry> entries = book.lookup(new ChessGame());
+        assertEquals(2, entries.size());
+        assertEquals(2, weightOf(entries, move(2, 5, 4, 5)));
+        assertEquals(1, weightOf(entries, move(2, 4, 4, 4)));
+    }
+
+    @Test
+    void positionOutsideTheBookHasNoMove() throws IOException, InvalidMoveException {
+        OpeningBook book = build(PGN, OpeningBookBuilder.DEFAULT_MAX_PLY);
+        ChessGame game = new ChessGame();
+        game.makeMove(San.parse(game, "h3"));
+        assertTrue(book.lookup(game).isEmpty());
+        assertNull(book.pick(game, new Random(1)));
+    }
+
+    @Test
+    void pickOnlyReturnsBookMoves() throws IOException, InvalidMoveException {
+        OpeningBook book = build(PGN, OpeningBookBuilder.DEFAULT_MAX_PLY);
+        ChessGame game = new ChessGame();
+        game.makeMove(San.parse(game, "e4"));
+        Random random = new Random(7);
+        for (int i = 0; i < 20; i++) {
+            ChessMove move = book.pick(game, random);
+            assertTrue(move.equals(move(7, 5, 5, 5)) || move.equals(move(7, 3, 5, 3)), "unexpected " + move);
+        }
+    }
+
+    @Test
+    void maxPlyLimitsDepth() throws IOException, InvalidMoveException {
+        OpeningBook book = build(PGN, 1);
+        ChessGame game = new ChessGame();
+        assertEquals(2, book.lookup(game).size());
+        game.makeMove(San.parse(game, "e4"));
+        assertTrue(book.lookup(game).isEmpty());
+    }
+
+    @Test
+    void rejectsFilesThatAreNotBooks() throws IOException {
+        Path path = Files.createTempFile("book", ".bin");
+        try {
+            Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+            assertThrows(IOException.class, () -> OpeningBook.open(path));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void sanResolvesDisambiguatedMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String san : List.of("Nf3", "Nf6", "Nc3", "Nc6", "Nd4", "Nd5")) {
+            game.makeMove(San.parse(game, san));
+        }
+        assertEquals(move(3, 3, 5, 2), San.parse(game, "Ncb5"));
+        assertEquals(move(4, 4, 5, 2), San.parse(game, "Ndb5"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "Nb5"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "Qh5"));
+    }
+
+    @Test
+    void sanReadsCastling() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String san : List.of("e4", "e5", "Nf3", "Nc6", "Bc4", "Bc5")) {
+            game.makeMove(San.parse(game, san));
+        }
+        assertEquals(move(1, 5, 1, 7), San.parse(game, "O-O"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "O-O-O"));
+    }
+
+    private static OpeningBook build(String pgn, int maxPly) throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(maxPly);
+        builder.addPgn(new StringReader(pgn));
+        assertEquals(3, builder.getGameCount());
+        Path path = Files.createTempFile("book", ".bin");
+        try {
+            builder.write(path);
+            return OpeningBook.open(path);
+        } finally {
+            path.toFile().deleteOnExit();
+        }
+    }
+
+    private static int weightOf(List<OpeningBook.Entry> entries, ChessMove move) {
+        for (OpeningBook.Entry entry : entries) {
+            if (entry.move().equals(move)) {
+                return entry.weight();
+            }
+        }
+        return 0;
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(ChessPosition.of(startRow, startCol), ChessPosition.of(endRow, endCol), null);
+    }
+}
@@ -0,0 +1,149 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTest {
+
+    @Test
+    void findsMateInOne() {
+        ChessGame game = game(ChessGame.TeamColor.WHITE,
+                "Kg1", "Ra1", "Pf2", "Pg2", "Ph2", "kg8", "pf7", "pg7", "ph7");
+        SearchResult result = Search.bestMove(game, SearchLimits.depth(3));
+
+        assertEquals(new ChessMove(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null), result.bestMove());
+        assertEquals(Search.MATE - 1, result.score());
+        assertTrue(Search.isMateScore(result.score()));
+    }
+
+    @Test
+    void capturesHangingQueen() {
+        ChessGame game = game(ChessGame.TeamColor.BLACK,
+                "Ke1", "Qd4", "Pa2", "ke8", "nc6", "pa7");
+        SearchResult result = Search.bestMove(game, SearchLimits.depth(4));
+
+        assertEquals(new ChessMove(ChessPosition.of(6, 3), ChessPosition.of(4, 4), null), result.bestMove());
+        assertEquals(result.bestMove(), result.principalVariation().get(0));
+    }
+
+    @Test
+    void searchLeavesGameUnchanged() {
+        ChessGame game = new ChessGame();
+        ChessGame copy = new ChessGame(game);
+        Search.bestMove(game, SearchLimits.depth(3));
+        assertEquals(copy, game);
+        assertEquals(0, game.getUndoCount());
+    }
+
+    @Test
+    void stopsAtNodeLimit() {
+        SearchResult result = Search.bestMove(new ChessGame(), SearchLimits.nodes(5_000));
+        assertNotNull(result.bestMove());
+        assertTrue(result.nodes() <= 5_000);
+    }
+
+    @Test
+    void stopsAtTimeLimit() {
+        SearchResult result = Search.bestMove(new ChessGame(), SearchLimits.time(100));
+        assertNotNull(result.bestMove());
+        assertTrue(result.timeMillis() < 1_000);
+        assertTrue(result.depth() >= 1);
+    }
+
+    @Test
+    void parallelSearchFindsMateInOne() {
+        ChessGame game = game(ChessGame.TeamColor.WHITE,
+                "Kg1", "Ra1", "Pf2", "Pg2", "Ph2", "kg8", "pf7", "pg7", "ph7");
+        SearchResult result = Search.bestMove(game, SearchLimits.depth(4).withThreads(4), new TranspositionTable(1));
+
+        assertEquals(new ChessMove(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null), result.bestMove());
+        assertEquals(Search.MATE - 1, result.score());
+    }
+
+    @Test
+    void parallelSearchStaysWithinLimits() {
+        ChessGame game = new ChessGame();
+        SearchResult result = Search.bestMove(game, SearchLimits.nodes(20_000).withThreads(3), new TranspositionTable(1));
+
+        assertNotNull(result.bestMove());
+        assertTrue(result.nodes() <= 20_000);
+        assertEquals(new ChessGame(), game);
+    }
+
+    @Test
+    void parallelSearchRunsHelpersOnTheCallersExecutor() throws InterruptedException {
+        ExecutorService helpers = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch busy = new CountDownLatch(1);
+            helpers.submit(() -> {
+                busy.await();
+                return null;
+            });
+            SearchResult alone = Search.bestMove(new ChessGame(), SearchLimits.depth(3).withThreads(3),
+                    new TranspositionTable(1), null, helpers);
+            assertNotNull(alone.bestMove(), "helpers that never start are skipped");
+            busy.countDown();
+
+            SearchResult shared = Search.bestMove(new ChessGame(), SearchLimits.depth(4).withThreads(2),
+                    new TranspositionTable(1), null, helpers);
+            assertNotNull(shared.bestMove());
+            assertFalse(helpers.isShutdown(), "the caller's executor is left running");
+        } finally {
+            helpers.shutdownNow();
+        }
+    }
+
+    @Test
+    void interruptStopsParallelSearchWithAResult() {
+        Thread.currentThread().interrupt();
+        SearchResult result = Search.bestMove(new ChessGame(), SearchLimits.depth(20).withThreads(3), new TranspositionTable(1));
+
+        assertTrue(Thread.interrupted(), "the interrupt is kept for the caller");
+        assertNotNull(result.bestMove());
+        assertTrue(result.depth() < 20);
+    }
+
+    @Test
+    void noMoveWhenCheckmated() {
+        ChessGame game = game(ChessGame.TeamColor.BLACK,
+                "Kg1", "Ra8", "Pf2", "Pg2", "Ph2", "kg8", "pf7", "pg7", "ph7");
+        SearchResult result = Search.bestMove(game, SearchLimits.depth(2));
+        assertNull(result.bestMove());
+        assertEquals(-Search.MATE, result.score());
+    }
+
+    /**
+     * Builds a game from pieces like "Kg1": the piece letter (upper case for
+     * white) followed by its square
+     */
+    private static ChessGame game(ChessGame.TeamColor turn, String... pieces) {
+        ChessBoard board = new ChessBoard();
+        for (String piece : pieces) {
+            ChessGame.TeamColor color = Character.isUpperCase(piece.charAt(0))
+                    ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            ChessPiece.PieceType type = switch (Character.toLowerCase(piece.charAt(0))) {
+                case 'k' -> ChessPiece.PieceType.KING;
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                default -> ChessPiece.PieceType.PAWN;
+            };
+            board.addPiece(ChessPosition.of(piece.charAt(2) - '0', piece.charAt(1) - 'a' + 1), ChessPiece.of(color, type));
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        return game;
+    }
+}
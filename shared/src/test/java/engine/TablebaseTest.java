@@ -0,0 +1,169 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablebaseTest {
+
+    private static Tablebase tablebase;
+
+    /**
+     * Generates KPK, which also needs KQK and KRK for its promotions, once for all tests
+     */
+    private static synchronized Tablebase tablebase() throws IOException {
+        if (tablebase == null) {
+            TablebaseGenerator generator = new TablebaseGenerator(2);
+            generator.generate("KPK");
+            Path path = Files.createTempFile("tablebase", ".bin");
+            path.toFile().deleteOnExit();
+            generator.write(path);
+            tablebase = Tablebase.open(path);
+        }
+        return tablebase;
+    }
+
+    @Test
+    void generatesTablesThatConversionsReach() throws IOException {
+        assertEquals(Set.of("KPK", "KQK", "KRK"), tablebase().names());
+    }
+
+    @Test
+    void scoresMateInOneAndCheckmate() throws IOException {
+        assertEquals(1, tablebase().probe(game(ChessGame.TeamColor.WHITE, "Kg6", "Qa7", "kh8")));
+        assertEquals(-1, tablebase().probe(game(ChessGame.TeamColor.BLACK, "Kg6", "Qg7", "kh8")));
+    }
+
+    @Test
+    void probesPositionsWhereBlackIsStronger() throws IOException {
+        ChessGame white = game(ChessGame.TeamColor.WHITE, "Kc3", "Rd5", "ka1");
+        ChessGame black = game(ChessGame.TeamColor.BLACK, "kc6", "rd4", "Ka8");
+        int value = tablebase().probe(white);
+        assertTrue(Tablebase.isWin(value));
+        assertEquals(value, tablebase().probe(black));
+    }
+
+    @Test
+    void longestMatesMatchKnownResults() throws IOException {
+        assertEquals(19, longestWin(ChessPiece.PieceType.QUEEN), "KQK mates in at most 10 moves");
+        assertEquals(31, longestWin(ChessPiece.PieceType.ROOK), "KRK mates in at most 16 moves");
+    }
+
+    @Test
+    void pawnEndgames() throws IOException {
+        assertTrue(Tablebase.isLoss(tablebase().probe(game(ChessGame.TeamColor.BLACK, "Ke6", "Pe5", "ke8"))));
+        assertEquals(Tablebase.DRAW, tablebase().probe(game(ChessGame.TeamColor.WHITE, "Kc5", "Pa5", "ka8")));
+        assertEquals(Tablebase.DRAW, tablebase().probe(game(ChessGame.TeamColor.BLACK, "Kc5", "Pa5", "ka8")));
+    }
+
+    @Test
+    void mirroredAndTurnedPositionsProbeTheSame() throws IOException {
+        int value = tablebase().probe(game(ChessGame.TeamColor.WHITE, "Kb3", "Qf2", "kc6"));
+        assertEquals(value, tablebase().probe(game(ChessGame.TeamColor.WHITE, "Kg3", "Qc2", "kf6")));
+        assertEquals(value, tablebase().probe(game(ChessGame.TeamColor.WHITE, "Kb6", "Qf7", "kc3")));
+        assertEquals(value, tablebase().probe(game(ChessGame.TeamColor.WHITE, "Kc2", "Qb6", "kf3")));
+
+        int pawn = tablebase().probe(game(ChessGame.TeamColor.BLACK, "Kc6", "Pc5", "kc8"));
+        assertEquals(pawn, tablebase().probe(game(ChessGame.TeamColor.BLACK, "Kf6", "Pf5", "kf8")));
+    }
+
+    @Test
+    void storesTablesFoldedBySymmetry() {
+        assertEquals(2 * 462 * 64, Endgame.of("KQK").tableSize);
+        assertEquals(2 * 1806 * 64, Endgame.of("KPK").tableSize);
+    }
+
+    @Test
+    void coversOnlySmallEndgames() throws IOException {
+        assertEquals(Tablebase.MISS, tablebase().probe(new ChessGame()));
+        assertEquals(Tablebase.MISS, tablebase().probe(game(ChessGame.TeamColor.WHITE, "Ke1", "Bc1", "Nb1", "ke8")));
+        assertEquals(Tablebase.DRAW, tablebase().probe(game(ChessGame.TeamColor.WHITE, "Ke1", "Bc1", "ke8")));
+    }
+
+    @Test
+    void searchPlaysTheFastestMate() throws IOException, InvalidMoveException {
+        ChessGame game = game(ChessGame.TeamColor.WHITE, "Kf6", "Pg6", "kg8");
+        SearchResult result = Search.bestMove(game, SearchLimits.depth(2), new TranspositionTable(1), tablebase());
+        int value = tablebase().probe(game);
+
+        assertTrue(Tablebase.isWin(value));
+        assertEquals(Search.MATE - Tablebase.distanceToMate(value), result.score());
+        game.makeMove(result.bestMove());
+        assertEquals(-Tablebase.distanceToMate(value), tablebase().probe(game), "one ply closer to mate");
+    }
+
+    @Test
+    void rejectsFilesThatAreNotTablebases() throws IOException {
+        Path path = Files.createTempFile("tablebase", ".bin");
+        try {
+            Files.write(path, new byte[32]);
+            assertThrows(IOException.class, () -> Tablebase.open(path));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * @return the most plies to mate, with white to move, over every position of
+     * white king and piece against the black king
+     */
+    private static int longestWin(ChessPiece.PieceType type) throws IOException {
+        ChessBoard board = new ChessBoard();
+        int longest = 0;
+        for (int king = 0; king < 64; king++) {
+            for (int piece = 0; piece < 64; piece++) {
+                for (int enemy = 0; enemy < 64; enemy++) {
+                    if (king == piece || king == enemy || piece == enemy) {
+                        continue;
+                    }
+                    board.setPiece(king, ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+                    board.setPiece(piece, ChessPiece.of(ChessGame.TeamColor.WHITE, type));
+                    board.setPiece(enemy, ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+                    int value = tablebase().probe(board, ChessGame.TeamColor.WHITE);
+                    if (Tablebase.isWin(value)) {
+                        longest = Math.max(longest, Tablebase.distanceToMate(value));
+                    }
+                    board.setPiece(king, null);
+                    board.setPiece(piece, null);
+                    board.setPiece(enemy, null);
+                }
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Builds a game from pieces like "Kg1": the piece letter (upper case for
+     * white) followed by its square
+     */
+    private static ChessGame game(ChessGame.TeamColor turn, String... pieces) {
+        ChessBoard board = new ChessBoard();
+        for (String piece : pieces) {
+            ChessGame.TeamColor color = Character.isUpperCase(piece.charAt(0))
+                    ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            ChessPiece.PieceType type = switch (Character.toLowerCase(piece.charAt(0))) {
+                case 'k' -> ChessPiece.PieceType.KING;
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                default -> ChessPiece.PieceType.PAWN;
+            };
+            board.addPiece(ChessPosition.of(piece.charAt(2) - '0', piece.charAt(1) - 'a' + 1), ChessPiece.of(color, type));
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        return game;
+    }
+}
@@ -0,0 +1,109 @@
+package engine;
+
+import chess.Move;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+
+    @Test
+    void storedEntryReadsBack() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = Move.of(12, 28);
+        table.store(0x1234_5678_9ABC_DEF0L, move, -250, 7, TranspositionTable.LOWER_BOUND, 3);
+
+        long entry = table.probe(0x1234_5678_9ABC_DEF0L);
+        assertNotEquals(TranspositionTable.MISS, entry);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-250, TranspositionTable.score(entry, 3));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry));
+        assertEquals(TranspositionTable.MISS, table.probe(0x1234_5678_9ABC_DEF1L));
+    }
+
+    @Test
+    void mateScoresAreStoredRelativeToThePosition() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(42L, Move.NONE, Search.MATE - 5, 4, TranspositionTable.EXACT, 2);
+
+        long entry = table.probe(42L);
+        assertEquals(Search.MATE - 5, TranspositionTable.score(entry, 2));
+        assertEquals(Search.MATE - 7, TranspositionTable.score(entry, 4));
+    }
+
+    @Test
+    void keepsBestMoveWhenUpdatedWithoutOne() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = Move.of(1, 18);
+        table.store(99L, move, 10, 3, TranspositionTable.EXACT, 0);
+        table.store(99L, Move.NONE, 5, 4, TranspositionTable.UPPER_BOUND, 0);
+
+        long entry = table.probe(99L);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(4, TranspositionTable.depth(entry));
+    }
+
+    @Test
+    void fullBucketReplacesShallowestEntry() {
+        TranspositionTable table = new TranspositionTable(1);
+        long stride = table.sizeInBytes() / 64;
+        for (int i = 0; i < 4; i++) {
+            table.store(i * stride, Move.NONE, 0, 10 + i, TranspositionTable.EXACT, 0);
+        }
+        table.store(4 * stride, Move.NONE, 0, 1, TranspositionTable.EXACT, 0);
+
+        assertEquals(TranspositionTable.MISS, table.probe(0));
+        for (int i = 1; i <= 4; i++) {
+            assertNotEquals(TranspositionTable.MISS, table.probe(i * stride));
+        }
+    }
+
+    @Test
+    void interleavedSearchesDoNotAgeEachOthersEntries() {
+        long[] now = {0};
+        TranspositionTable table = new TranspositionTable(1, () -> now[0]);
+        long stride = table.sizeInBytes() / 64;
+        table.newSearch();
+        for (int i = 0; i < 3; i++) {
+            table.store(i * stride, Move.NONE, 0, 12, TranspositionTable.EXACT, 0);
+        }
+        for (int other = 0; other < 300; other++) {
+            now[0] += 1_000_000;
+            table.newSearch();
+        }
+        table.store(3 * stride, Move.NONE, 0, 2, TranspositionTable.EXACT, 0);
+        table.store(4 * stride, Move.NONE, 0, 1, TranspositionTable.EXACT, 0);
+
+        assertEquals(TranspositionTable.MISS, table.probe(3 * stride), "the shallow entry goes, not the first search's");
+        for (int i = 0; i < 3; i++) {
+            assertNotEquals(TranspositionTable.MISS, table.probe(i * stride));
+        }
+    }
+
+    @Test
+    void earlierGenerationsAreReplacedFirst() {
+        long[] now = {0};
+        TranspositionTable table = new TranspositionTable(1, () -> now[0]);
+        long stride = table.sizeInBytes() / 64;
+        table.newSearch();
+        for (int i = 0; i < 3; i++) {
+            table.store(i * stride, Move.NONE, 0, 10 + i, TranspositionTable.EXACT, 0);
+        }
+        now[0] += 2 * TranspositionTable.GENERATION_MILLIS * 1_000_000;
+        table.newSearch();
+        table.store(3 * stride, Move.NONE, 0, 3, TranspositionTable.EXACT, 0);
+        table.store(4 * stride, Move.NONE, 0, 1, TranspositionTable.EXACT, 0);
+
+        assertEquals(TranspositionTable.MISS, table.probe(0));
+        for (int i = 1; i <= 4; i++) {
+            assertNotEquals(TranspositionTable.MISS, table.probe(i * stride));
+        }
+    }
+
+    @Test
+    void sizeIsPowerOfTwoWithinBudget() {
+        TranspositionTable table = new TranspositionTable(3);
+        assertEquals(2L * 1024 * 1024, table.sizeInBytes());
+    }
+}
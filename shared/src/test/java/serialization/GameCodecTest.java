@@ -0,0 +1,91 @@
+package serialization;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.Perft;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameCodecTest {
+
+    @Test
+    void roundTripsStandardPositions() {
+        for (Perft.Position position : Perft.STANDARD_POSITIONS) {
+            ChessGame game = ChessGame.fromFen(position.fen());
+            byte[] bytes = GameCodec.encode(game);
+
+            assertEquals(GameCodec.size(game), bytes.length);
+            assertEquals(42, bytes.length, "no positions to repeat");
+            assertEquals(position.fen(), GameCodec.decode(bytes).toFen(), position.name());
+        }
+    }
+
+    @Test
+    void keepsRepeatablePositions() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("8/8/8/3pP3/8/8/8/K6k w - d6 0 20");
+        for (int i = 0; i < 2; i++) {
+            game.makeMove(new ChessMove(ChessPosition.of(1, 1), ChessPosition.of(2, 1), null));
+            game.makeMove(new ChessMove(ChessPosition.of(1, 8), ChessPosition.of(2, 8), null));
+            game.makeMove(new ChessMove(ChessPosition.of(2, 1), ChessPosition.of(1, 1), null));
+            game.makeMove(new ChessMove(ChessPosition.of(2, 8), ChessPosition.of(1, 8), null));
+        }
+        ChessGame read = GameCodec.decode(GameCodec.encode(game));
+
+        assertEquals(game.toFen(), read.toFen());
+        assertArrayEquals(game.getPositionHistory(), read.getPositionHistory());
+        assertEquals(game.getStatus(), read.getStatus());
+    }
+
+    @Test
+    void keepsFullmoveNumbersPastAShort() {
+        for (int number : new int[]{Short.MAX_VALUE, Short.MAX_VALUE + 1, 1_000_000}) {
+            String fen = "4k3/8/8/8/8/8/4P3/4K3 b - - 0 " + number;
+            ChessGame read = GameCodec.decode(GameCodec.encode(ChessGame.fromFen(fen)));
+
+            assertEquals(fen, read.toFen());
+            assertEquals(ChessGame.fromFen(fen).getPly(), read.getPly());
+        }
+    }
+
+    @Test
+    void readsVersionOneGames() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/4P3/4K3 b - - 7 300");
+        byte[] current = GameCodec.encode(game);
+        ByteBuffer old = ByteBuffer.allocate(current.length - 2);
+        old.put((byte) 1).put(current, 1, 36).put(current, 39, current.length - 39);
+
+        assertEquals(game.toFen(), GameCodec.decode(old.array()).toFen());
+    }
+
+    @Test
+    void readsAndWritesInPlace() {
+        ChessGame first = new ChessGame();
+        ChessGame second = ChessGame.fromFen(Perft.STANDARD_POSITIONS.get(3).fen());
+        ByteBuffer buffer = ByteBuffer.allocate(GameCodec.size(first) + GameCodec.size(second));
+        GameCodec.write(first, buffer);
+        GameCodec.write(second, buffer);
+        buffer.flip();
+
+        assertEquals(first, GameCodec.read(buffer));
+        assertEquals(second, GameCodec.read(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void rejectsUnknownOrTruncatedData() {
+        byte[] bytes = GameCodec.encode(new ChessGame());
+        byte[] future = bytes.clone();
+        future[0] = GameCodec.VERSION + 1;
+
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(future));
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[10]));
+        assertThrows(IllegalArgumentException.class,
+                () -> GameCodec.decode(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+}
@@ -0,0 +1,91 @@
+package serialization;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.InvalidMoveException;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializerTest {
+
+    @Test
+    void writesMovesAsPlainGsonDoes() {
+        ChessMove move = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN);
+        assertEquals(new Gson().toJson(move), Serializer.gson().toJson(move));
+
+        ChessMove quiet = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        assertEquals(new Gson().toJson(quiet), Serializer.gson().toJson(quiet));
+    }
+
+    @Test
+    void writesGamesCompactly() {
+        assertEquals("{\"fen\":\"" + Fen.START + "\"}", Serializer.gson().toJson(new ChessGame()));
+    }
+
+    @Test
+    void roundTripsGameState() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String[] move : new String[][]{{"g1", "f3"}, {"g8", "f6"}, {"f3", "g1"}, {"f6", "g8"},
+                {"g1", "f3"}, {"g8", "f6"}, {"f3", "g1"}, {"f6", "g8"}, {"e2", "e4"}, {"a7", "a6"},
+                {"e4", "e5"}, {"d7", "d5"}}) {
+            game.makeMove(new ChessMove(square(move[0]), square(move[1]), null));
+        }
+        ChessGame read = Serializer.gson().fromJson(Serializer.gson().toJson(game), ChessGame.class);
+
+        assertEquals(game, read);
+        assertEquals(4, read.getEnPassantFile());
+        assertEquals(0, read.getHalfmoveClock());
+
+        for (String[] move : new String[][]{{"g1", "f3"}, {"g8", "f6"}, {"f3", "g1"}, {"f6", "g8"},
+                {"g1", "f3"}, {"g8", "f6"}, {"f3", "g1"}, {"f6", "g8"}}) {
+            game.makeMove(new ChessMove(square(move[0]), square(move[1]), null));
+        }
+        read = Serializer.gson().fromJson(Serializer.gson().toJson(game), ChessGame.class);
+        assertEquals(8, read.getHalfmoveClock());
+        assertTrue(read.isRepetition(), "the repeated position is remembered");
+        assertEquals(game.getStatus().type(), read.getStatus().type());
+    }
+
+    @Test
+    void readsGamesWrittenByReflection() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(square("e2"), square("e4"), null));
+        game.makeMove(new ChessMove(square("g8"), square("f6"), null));
+        ChessGame read = Serializer.gson().fromJson(new Gson().toJson(game), ChessGame.class);
+
+        assertEquals(game, read);
+        assertEquals(1, read.getHalfmoveClock());
+        assertArrayEquals(game.getPositionHistory(), read.getPositionHistory());
+        assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                read.getBoard().getPiece(square("e4")));
+    }
+
+    @Test
+    void readsSharedInstances() {
+        String json = Serializer.gson().toJson(new ChessGame());
+        ChessGame game = Serializer.gson().fromJson(json, ChessGame.class);
+
+        assertEquals(new ChessGame(), game);
+        ChessPiece rook = game.getBoard().getPiece(ChessPosition.of(1, 1));
+        assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK), rook);
+    }
+
+    @Test
+    void readsMovesWrittenByPlainGson() {
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        ChessMove read = Serializer.gson().fromJson(new Gson().toJson(move), ChessMove.class);
+
+        assertEquals(move, read);
+        assertSame(ChessPosition.of(2, 5), read.getStartPosition());
+        assertSame(ChessPosition.of(4, 5), read.getEndPosition());
+    }
+
+    private static ChessPosition square(String name) {
+        return ChessPosition.of(name.charAt(1) - '0', name.charAt(0) - 'a' + 1);
+    }
+}